@@ -0,0 +1,197 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inflectra.idea.core;
+
+import com.intellij.util.concurrency.AppExecutorUtil;
+import inflectra.idea.core.json.ArtifactJsonParser;
+import inflectra.idea.core.model.artifacts.Artifact;
+import inflectra.idea.core.model.artifacts.ArtifactDraft;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Creates many artifacts at once, reporting how each one went
+ * <p>The drafts are submitted concurrently, with at most {@link #MAX_IN_FLIGHT} requests running at once so the
+ * server is not flooded. A failed draft does not stop the others, and can be retried on its own later</p>
+ * @author Peter Geertsema
+ */
+public class SpiraTeamBulkCreator {
+  /**
+   * The most create requests which can be running at once
+   */
+  public static final int MAX_IN_FLIGHT = 4;
+  /**
+   * Shared by every bulk create so the window stays bounded even if several are running
+   */
+  private static final ExecutorService executor =
+    AppExecutorUtil.createBoundedApplicationPoolExecutor("SpiraTeam Bulk Create", MAX_IN_FLIGHT);
+
+  /**
+   * Submits every draft in the background
+   * @param credentials The information needed to perform the HTTP requests
+   * @param drafts The artifacts to create
+   * @param listener Told about each draft as soon as it has finished, on a pooled thread. May be null
+   * @return A future which completes with a result for each draft, in the same order, once all have finished.
+   * Cancelling it interrupts the requests which are still running or waiting
+   */
+  public static CompletableFuture<List<Result>> create(SpiraTeamCredentials credentials, List<ArtifactDraft> drafts,
+                                                       Listener listener) {
+    List<Result> previous = new ArrayList<>(drafts.size());
+    for(ArtifactDraft draft: drafts) {
+      previous.add(new Result(draft, null, "Not submitted"));
+    }
+    return retryFailed(credentials, previous, listener);
+  }
+
+  /**
+   * Submits the drafts which failed again, keeping the artifacts which were already created
+   * @param credentials The information needed to perform the HTTP requests
+   * @param previous The results of an earlier bulk create
+   * @param listener Told about each retried draft as soon as it has finished, on a pooled thread. May be null
+   * @return A future which completes with a result for each draft, in the same order as before
+   */
+  public static CompletableFuture<List<Result>> retryFailed(SpiraTeamCredentials credentials, List<Result> previous,
+                                                            Listener listener) {
+    List<CompletableFuture<Result>> results = new ArrayList<>(previous.size());
+    for(int i=0; i<previous.size(); i++) {
+      Result result = previous.get(i);
+      //never create the same artifact twice
+      if(result.isSucceeded())
+        results.add(CompletableFuture.completedFuture(result));
+      else
+        results.add(submit(credentials, i, result.getDraft(), listener));
+    }
+    CompletableFuture<List<Result>> out = CompletableFuture.allOf(results.toArray(new CompletableFuture[0]))
+      .thenApply(v -> {
+        List<Result> list = new ArrayList<>(results.size());
+        for(CompletableFuture<Result> result: results) {
+          list.add(result.join());
+        }
+        return list;
+      });
+    //cancelling the bulk create cancels every request still running or waiting
+    out.whenComplete((list, error) -> {
+      if(out.isCancelled()) {
+        for(CompletableFuture<Result> result: results) {
+          result.cancel(true);
+        }
+      }
+    });
+    return out;
+  }
+
+  /**
+   * Creates a single artifact on the bounded executor
+   * <p>The future never completes exceptionally unless cancelled, a failure is reported in the result</p>
+   */
+  private static CompletableFuture<Result> submit(SpiraTeamCredentials credentials, int index, ArtifactDraft draft,
+                                                  Listener listener) {
+    CompletableFuture<Result> out = new CompletableFuture<>();
+    Future<?> task = executor.submit(() -> {
+      Result result;
+      try {
+        InputStream stream = SpiraTeamUtil.createArtifact(credentials, draft);
+        //the server has created it, so a response which cannot be read must not make it fail
+        result = new Result(draft, read(stream), null);
+      }
+      catch(IOException | RuntimeException e) {
+        result = new Result(draft, null, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+      }
+      if(listener != null)
+        listener.draftFinished(index, result);
+      out.complete(result);
+    });
+    out.whenComplete((result, error) -> {
+      if(out.isCancelled())
+        task.cancel(true);
+    });
+    return out;
+  }
+
+  /**
+   * Reads the created artifact from a successful response
+   * <p>The server has already created it at this point, so the draft counts as succeeded even if the response
+   * cannot be read, otherwise retrying it would create it twice</p>
+   * @return The created artifact, null if the response could not be read
+   */
+  private static Artifact read(InputStream stream) {
+    //closing the stream hands the connection back so the next request can reuse it
+    try(InputStream in = stream) {
+      return ArtifactJsonParser.parseArtifact(in);
+    }
+    catch(IOException | RuntimeException e) {
+      e.printStackTrace();
+      return null;
+    }
+  }
+
+  /**
+   * How creating a single draft went
+   */
+  public static class Result {
+    private final ArtifactDraft draft;
+    private final Artifact created;
+    private final String error;
+
+    private Result(ArtifactDraft draft, Artifact created, String error) {
+      this.draft = draft;
+      this.created = created;
+      this.error = error;
+    }
+
+    /**
+     * @return The draft which was submitted
+     */
+    public ArtifactDraft getDraft() {
+      return draft;
+    }
+
+    /**
+     * @return The artifact as returned by the server, null if it failed or the response could not be read
+     */
+    public Artifact getCreated() {
+      return created;
+    }
+
+    /**
+     * @return Why the draft failed, null if it succeeded
+     */
+    public String getError() {
+      return error;
+    }
+
+    public boolean isSucceeded() {
+      return error == null;
+    }
+  }
+
+  /**
+   * Told how a bulk create is going, on the pooled threads doing the work
+   */
+  public interface Listener {
+    /**
+     * @param index The position of the draft in the list
+     * @param result How creating the draft went
+     */
+    void draftFinished(int index, Result result);
+  }
+}
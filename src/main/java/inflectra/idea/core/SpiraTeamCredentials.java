@@ -22,6 +22,9 @@ import com.intellij.openapi.components.Storage;
 import com.intellij.util.xmlb.XmlSerializerUtil;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Class which represents the username, RSS token and base URL to access SpiraTeam
  * @author Peter Geertsema
@@ -31,6 +34,18 @@ import org.jetbrains.annotations.Nullable;
     value = "$APP_CONFIG$/credentialspersist.xml")
   )
 public class SpiraTeamCredentials implements PersistentStateComponent<SpiraTeamCredentials> {
+  /**
+   * How often the artifacts are refreshed automatically unless the user chooses otherwise
+   */
+  public static final int DEFAULT_AUTO_REFRESH_MINUTES = 5;
+  /**
+   * How long roles, users, types and priorities are kept unless the user chooses otherwise
+   */
+  public static final int DEFAULT_REFERENCE_DATA_TTL_MINUTES = 30;
+  /**
+   * How many recently used projects are remembered
+   */
+  public static final int MAX_RECENT_PROJECTS = 5;
   /**
    * class used to actually store the credentials
    * needed to have them persist through restarts
@@ -64,6 +79,18 @@ public class SpiraTeamCredentials implements PersistentStateComponent<SpiraTeamC
      * The project Id that the user most recently added a new artifact to
      */
     public int lastCreatedProjectId;
+    /**
+     * How often, in minutes, the artifacts are refreshed automatically. 0 turns it off
+     */
+    public int autoRefreshMinutes = DEFAULT_AUTO_REFRESH_MINUTES;
+    /**
+     * How long, in minutes, roles, users, types and priorities are kept before being requested again. 0 turns it off
+     */
+    public int referenceDataTtlMinutes = DEFAULT_REFERENCE_DATA_TTL_MINUTES;
+    /**
+     * The projects the user most recently added artifacts to, most recent first
+     */
+    public List<Integer> recentProjectIds = new ArrayList<>();
 
     public State() {
 
@@ -163,6 +190,69 @@ public class SpiraTeamCredentials implements PersistentStateComponent<SpiraTeamC
     this.state.lastCreatedArtifactType = type;
   }
 
+  /**
+   * @return How often, in minutes, the artifacts are refreshed automatically. 0 if they are not
+   */
+  public int getAutoRefreshMinutes() {
+    return Math.max(state.autoRefreshMinutes, 0);
+  }
+
+  public void setAutoRefreshMinutes(int autoRefreshMinutes) {
+    this.state.autoRefreshMinutes = autoRefreshMinutes;
+  }
+
+  /**
+   * @return How long, in minutes, roles, users, types and priorities are kept. 0 if they are not
+   */
+  public int getReferenceDataTtlMinutes() {
+    return Math.max(state.referenceDataTtlMinutes, 0);
+  }
+
+  /**
+   * @return How long, in milliseconds, roles, users, types and priorities are kept. 0 if they are not
+   */
+  public long getReferenceDataTtlMillis() {
+    return getReferenceDataTtlMinutes() * 60_000L;
+  }
+
+  public void setReferenceDataTtlMinutes(int referenceDataTtlMinutes) {
+    this.state.referenceDataTtlMinutes = referenceDataTtlMinutes;
+  }
+
+  /**
+   * @return The projects the user most recently added artifacts to, most recent first
+   */
+  public List<Integer> getRecentProjectIds() {
+    List<Integer> out = new ArrayList<>();
+    if(state.recentProjectIds != null)
+      out.addAll(state.recentProjectIds);
+    //older settings files only have the last project
+    if(out.isEmpty() && state.lastCreatedProjectId > 0)
+      out.add(state.lastCreatedProjectId);
+    return out;
+  }
+
+  /**
+   * Moves the project to the front of the recently used projects
+   * @param projectId The project the user just added an artifact to
+   */
+  public void addRecentProjectId(int projectId) {
+    List<Integer> recent = getRecentProjectIds();
+    recent.remove(Integer.valueOf(projectId));
+    recent.add(0, projectId);
+    //forget the project used longest ago
+    while(recent.size() > MAX_RECENT_PROJECTS)
+      recent.remove(recent.size() - 1);
+    this.state.recentProjectIds = recent;
+  }
+
+  /**
+   * Forgets the recently used projects, used when the user or server changes
+   */
+  public void clearRecentProjectIds() {
+    this.state.recentProjectIds = new ArrayList<>();
+  }
+
   @Override
   public String toString() {
     return "username: " + getUsername() + " RSS Token: " + getToken() + " URL: " + getUrl();
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inflectra.idea.core;
+
+import com.intellij.util.concurrency.AppExecutorUtil;
+import inflectra.idea.core.http.HttpClientTransport;
+import inflectra.idea.core.model.SpiraTeamProject;
+import inflectra.idea.core.model.SpiraTeamProjectRole;
+import inflectra.idea.core.model.SpiraTeamUser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Works out which projects the current user is a member of, and what role they have in each
+ * <p>The project roles are fetched once, and the users of each project are fetched concurrently
+ * with at most {@link #MAX_CONCURRENT_REQUESTS} requests in flight</p>
+ * @author Peter Geertsema
+ */
+public class SpiraTeamMembershipResolver {
+  /**
+   * The most project user requests which can be running at once. Any more would only wait on the transport,
+   * which allows no more exchanges than this against one host
+   */
+  public static final int MAX_CONCURRENT_REQUESTS = HttpClientTransport.DEFAULT_MAX_CONNECTIONS_PER_HOST;
+  /**
+   * Shared by every resolver so the fan-out stays bounded even if several dialogs resolve at once
+   */
+  private static final ExecutorService executor =
+    AppExecutorUtil.createBoundedApplicationPoolExecutor("SpiraTeam Project Membership", MAX_CONCURRENT_REQUESTS);
+
+  private SpiraTeamCredentials credentials;
+
+  public SpiraTeamMembershipResolver(SpiraTeamCredentials credentials) {
+    this.credentials = credentials;
+  }
+
+  /**
+   * @param projects Every project visible to the current user
+   * @return The projects the user is a member of, in the same order, with their role set
+   * @throws InterruptedException If interrupted while waiting for the project users
+   */
+  public List<SpiraTeamProject> resolve(List<SpiraTeamProject> projects) throws InterruptedException {
+    //the roles are the same for every project, so they are only fetched once per session
+    Map<Integer, SpiraTeamProjectRole> roles = getRoles();
+
+    //start looking for the current user in every project at once
+    List<Future<SpiraTeamUser>> memberships = new ArrayList<>(projects.size());
+    for(SpiraTeamProject project: projects) {
+      memberships.add(executor.submit(() -> findCurrentUser(project.getProjectId())));
+    }
+
+    //the list to be returned
+    List<SpiraTeamProject> out = new ArrayList<>();
+    try {
+      for(int i=0; i<projects.size(); i++) {
+        SpiraTeamUser user;
+        try {
+          user = memberships.get(i).get();
+        }
+        catch(ExecutionException e) {
+          //only leave out the project which failed, the rest can still be shown
+          e.printStackTrace();
+          continue;
+        }
+        //only add project if user is within it
+        if(user != null) {
+          SpiraTeamProject project = projects.get(i);
+          //set the role in the project, null if the role does not exist
+          project.setUserRole(roles.get(user.getRoleId()));
+          out.add(project);
+        }
+      }
+    }
+    finally {
+      //no need to keep looking if we were interrupted
+      for(Future<SpiraTeamUser> membership: memberships) {
+        membership.cancel(true);
+      }
+    }
+    return out;
+  }
+
+  /**
+   * @return Every project role in the system, keyed by the role ID, taken from the session
+   * @throws InterruptedException If interrupted while waiting for the session
+   */
+  private Map<Integer, SpiraTeamProjectRole> getRoles() throws InterruptedException {
+    try {
+      return SpiraTeamSession.get(credentials).get().getRoles();
+    }
+    catch(ExecutionException e) {
+      //the current user could not be retrieved, so the credentials are wrong
+      e.printStackTrace();
+      return Collections.emptyMap();
+    }
+  }
+
+  /**
+   * @param projectId The project to look in
+   * @return The current user as a member of the project, null if they are not part of it
+   * @throws IOException If the users of the project could not be retrieved
+   */
+  private SpiraTeamUser findCurrentUser(int projectId) throws IOException {
+    for(SpiraTeamUser user: SpiraTeamUtil.getProjectUsers(credentials, projectId)) {
+      //the array can have gaps in it, so skip any empty slots
+      if(user != null && user.getUsername().equals(credentials.getUsername())) {
+        return user;
+      }
+    }
+    return null;
+  }
+}
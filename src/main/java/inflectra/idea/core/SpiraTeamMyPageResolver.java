@@ -0,0 +1,90 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inflectra.idea.core;
+
+import inflectra.idea.core.model.SpiraTeamProject;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Works out the URL of the user's My Page
+ * <p>My Page belongs to the user rather than a project, but its URL still needs the ID of a project the user
+ * can see. A project the user recently created an artifact in is used if there is one, otherwise the first
+ * project from a single request. The answer is kept for the rest of the session, so only the first visit to
+ * My Page ever waits on the server</p>
+ * @author Peter Geertsema
+ */
+public class SpiraTeamMyPageResolver {
+  /**
+   * The project used for My Page, keyed by the server and user
+   */
+  private static final Map<String, Integer> projectIds = new ConcurrentHashMap<>();
+
+  /**
+   * @param credentials The information needed to perform the HTTP request
+   * @return The URL of the user's My Page, null if the user cannot see any project or the server could not be reached
+   */
+  public static URI resolve(SpiraTeamCredentials credentials) {
+    String key = credentials.getUrl() + "\n" + credentials.getUsername();
+    Integer projectId = projectIds.get(key);
+    if(projectId == null) {
+      projectId = findProjectId(credentials);
+      if(projectId == null)
+        return null;
+      projectIds.put(key, projectId);
+    }
+    try {
+      return new URI(credentials.getUrl() + "/" + projectId + "/MyPage.aspx");
+    }
+    catch(URISyntaxException e) {
+      //should never happen as long as the URL is correct
+      e.printStackTrace();
+    }
+    return null;
+  }
+
+  /**
+   * Forgets every resolved project, used when the credentials change
+   */
+  public static void clear() {
+    projectIds.clear();
+  }
+
+  /**
+   * @return A project visible to the user, null if there is none or the server could not be reached
+   */
+  private static Integer findProjectId(SpiraTeamCredentials credentials) {
+    //the user has created artifacts there, so no request is needed
+    List<Integer> recent = credentials.getRecentProjectIds();
+    if(!recent.isEmpty() && recent.get(0) > 0)
+      return recent.get(0);
+    try {
+      SpiraTeamProject[] projects = SpiraTeamUtil.getVisibleProjects(credentials);
+      if(projects.length > 0)
+        return projects[0].getProjectId();
+    }
+    catch(IOException e) {
+      //should never happen as long as credentials are correct
+      e.printStackTrace();
+    }
+    return null;
+  }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inflectra.idea.core;
+
+import com.intellij.util.concurrency.AppExecutorUtil;
+import inflectra.idea.core.cache.AssignedArtifactStore;
+import inflectra.idea.core.http.SpiraTeamEndpoint;
+import inflectra.idea.core.model.artifacts.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Fetches and parses every artifact assigned to the user off the Event Dispatch Thread
+ * <p>Requirements, tasks and incidents are downloaded in parallel, so a refresh takes about as long as the
+ * slowest of the three requests. The results are merged into an {@link AssignedArtifactStore}, so
+ * callers can tell what changed since the previous refresh. The first artifacts of a large list are handed
+ * over while the rest of the response is still being read, so they can be shown straight away</p>
+ * @author Peter Geertsema
+ */
+public class SpiraTeamRefreshPipeline {
+  /**
+   * The artifacts from the previous refresh, which each refresh is merged into
+   */
+  private static final AssignedArtifactStore store = new AssignedArtifactStore();
+  /**
+   * The server and user the store currently belongs to
+   */
+  private static String storeOwner;
+
+  /**
+   * Retrieves one kind of assigned artifact
+   */
+  private interface ArtifactSource {
+    List<Artifact> fetch(SpiraTeamCredentials credentials, Consumer<List<Artifact>> onPreview) throws IOException;
+  }
+
+  /**
+   * Starts fetching every assigned artifact in the background
+   * @param credentials The information needed to perform the HTTP requests
+   * @return A future which completes with every assigned artifact and what changed since the previous refresh,
+   * or exceptionally if any request failed
+   */
+  public static CompletableFuture<AssignedArtifacts> fetchAssignedArtifacts(SpiraTeamCredentials credentials) {
+    return fetchAssignedArtifacts(credentials, null);
+  }
+
+  /**
+   * Starts fetching every assigned artifact in the background, reporting the first artifacts of each list as soon
+   * as they have been read
+   * <p>Cancelling the returned future interrupts the threads doing the work, which aborts their HTTP exchanges</p>
+   * @param credentials The information needed to perform the HTTP requests
+   * @param listener Told about each preview and endpoint as soon as it has been read. May be null
+   * @return A future which completes with every assigned artifact and what changed since the previous refresh,
+   * or exceptionally if any request failed
+   */
+  public static CompletableFuture<AssignedArtifacts> fetchAssignedArtifacts(SpiraTeamCredentials credentials,
+                                                                            Listener listener) {
+    //the previews read so far, so each one can be handed over along with the others
+    Map<SpiraTeamEndpoint, List<Artifact>> soFar = new EnumMap<>(SpiraTeamEndpoint.class);
+    //called from all three threads, so only one preview is added and handed over at a time
+    BiConsumer<SpiraTeamEndpoint, List<Artifact>> addPreview = (endpoint, preview) -> {
+      if(listener == null)
+        return;
+      synchronized(soFar) {
+        //each endpoint hands over a single preview, so at most three are ever copied
+        soFar.put(endpoint, preview);
+        listener.previewRead(endpoint, new AssignedArtifacts(
+          new ArrayList<>(soFar.getOrDefault(SpiraTeamEndpoint.ASSIGNED_REQUIREMENTS, Collections.emptyList())),
+          new ArrayList<>(soFar.getOrDefault(SpiraTeamEndpoint.ASSIGNED_TASKS, Collections.emptyList())),
+          new ArrayList<>(soFar.getOrDefault(SpiraTeamEndpoint.ASSIGNED_INCIDENTS, Collections.emptyList()))));
+      }
+    };
+    //start all three at once
+    CompletableFuture<List<Artifact>> requirements = fetch(credentials, SpiraTeamEndpoint.ASSIGNED_REQUIREMENTS,
+                                                           SpiraTeamUtil::getAssignedRequirements, addPreview, listener);
+    CompletableFuture<List<Artifact>> tasks = fetch(credentials, SpiraTeamEndpoint.ASSIGNED_TASKS,
+                                                    SpiraTeamUtil::getAssignedTasks, addPreview, listener);
+    CompletableFuture<List<Artifact>> incidents = fetch(credentials, SpiraTeamEndpoint.ASSIGNED_INCIDENTS,
+                                                        SpiraTeamUtil::getAssignedIncidents, addPreview, listener);
+    //only complete once all three are finished
+    CompletableFuture<AssignedArtifacts> out = CompletableFuture.allOf(requirements, tasks, incidents)
+      .thenApply(v -> getStore(credentials).merge(requirements.join(), tasks.join(), incidents.join()));
+    //cancelling the refresh cancels all three requests
+    out.whenComplete((artifacts, error) -> {
+      if(out.isCancelled()) {
+        requirements.cancel(true);
+        tasks.cancel(true);
+        incidents.cancel(true);
+      }
+    });
+    return out;
+  }
+
+  /**
+   * Fills the store with artifacts retrieved earlier, so the next refresh only reports what changed since then
+   * @param credentials The server and user the artifacts belong to
+   * @param artifacts The artifacts retrieved earlier
+   */
+  public static void seed(SpiraTeamCredentials credentials, AssignedArtifacts artifacts) {
+    getStore(credentials).seed(artifacts);
+  }
+
+  /**
+   * Adds a single artifact to the store without a refresh, such as one the user has just created
+   * @param credentials The server and user the artifact belongs to
+   * @param artifact The artifact to add, which must be assigned to the user
+   * @return Every assigned artifact, with the artifact reported as added or updated
+   */
+  public static AssignedArtifacts addArtifact(SpiraTeamCredentials credentials, Artifact artifact) {
+    SpiraTeamEndpoint endpoint;
+    if(artifact.isRequirement())
+      endpoint = SpiraTeamEndpoint.ASSIGNED_REQUIREMENTS;
+    else if(artifact.isTask())
+      endpoint = SpiraTeamEndpoint.ASSIGNED_TASKS;
+    else
+      endpoint = SpiraTeamEndpoint.ASSIGNED_INCIDENTS;
+    return getStore(credentials).put(endpoint, artifact);
+  }
+
+  /**
+   * @return The store, emptied first if it belonged to a different server or user
+   */
+  private static synchronized AssignedArtifactStore getStore(SpiraTeamCredentials credentials) {
+    String owner = credentials.getUrl() + "\n" + credentials.getUsername();
+    if(!owner.equals(storeOwner)) {
+      store.clear();
+      storeOwner = owner;
+    }
+    return store;
+  }
+
+  /**
+   * Downloads and parses a single list of artifacts on a pooled thread
+   * <p>Cancelling the returned future interrupts the thread, which aborts the HTTP exchange</p>
+   */
+  private static CompletableFuture<List<Artifact>> fetch(SpiraTeamCredentials credentials, SpiraTeamEndpoint endpoint,
+                                                         ArtifactSource source,
+                                                         BiConsumer<SpiraTeamEndpoint, List<Artifact>> onPreview,
+                                                         Listener listener) {
+    CompletableFuture<List<Artifact>> out = new CompletableFuture<>();
+    Future<?> task = AppExecutorUtil.getAppExecutorService().submit(() -> {
+      try {
+        List<Artifact> artifacts = source.fetch(credentials, preview -> onPreview.accept(endpoint, preview));
+        if(listener != null)
+          listener.endpointFinished(endpoint, artifacts.size());
+        out.complete(artifacts);
+      }
+      catch(IOException | RuntimeException e) {
+        out.completeExceptionally(e);
+      }
+    });
+    out.whenComplete((artifacts, error) -> {
+      if(out.isCancelled())
+        task.cancel(true);
+    });
+    return out;
+  }
+
+  /**
+   * Told how a refresh is going, on the pooled threads doing the work
+   */
+  public interface Listener {
+    /**
+     * @param endpoint The endpoint the preview was read from
+     * @param soFar The preview of every list which has one so far
+     */
+    default void previewRead(SpiraTeamEndpoint endpoint, AssignedArtifacts soFar) {
+    }
+
+    /**
+     * @param endpoint The endpoint which has been read in full
+     * @param count How many artifacts were read from it
+     */
+    default void endpointFinished(SpiraTeamEndpoint endpoint, int count) {
+    }
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inflectra.idea.core;
+
+import com.intellij.util.concurrency.AppExecutorUtil;
+import inflectra.idea.core.cache.ProjectMetadataService;
+import inflectra.idea.core.model.SpiraTeamProjectRole;
+import inflectra.idea.core.model.SpiraTeamUser;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The authenticated user and the project roles of the server, resolved once when the user logs in
+ * <p>Every part of the plug-in shares the same session, so the current user is never requested again just to
+ * compare IDs. The session is only resolved again once the URL, username or RSS token changes</p>
+ * @author Peter Geertsema
+ */
+public class SpiraTeamSession {
+  /**
+   * The session of the current credentials, complete or still being resolved
+   */
+  private static CompletableFuture<SpiraTeamSession> current;
+  /**
+   * The credentials the current session was resolved for
+   */
+  private static String currentFingerprint;
+
+  private final SpiraTeamUser user;
+  private final Map<Integer, SpiraTeamProjectRole> roles;
+
+  private SpiraTeamSession(SpiraTeamUser user, Map<Integer, SpiraTeamProjectRole> roles) {
+    this.user = user;
+    this.roles = Collections.unmodifiableMap(roles);
+  }
+
+  /**
+   * Gets the session of the given credentials, resolving it in the background if it has not been already
+   * @param credentials The credentials the user logged in with
+   * @return A future which completes with the session, or exceptionally if the current user could not be retrieved
+   */
+  public static synchronized CompletableFuture<SpiraTeamSession> get(SpiraTeamCredentials credentials) {
+    String fingerprint = getFingerprint(credentials);
+    if(current == null || !fingerprint.equals(currentFingerprint) || current.isCompletedExceptionally()) {
+      current = CompletableFuture.supplyAsync(() -> resolve(credentials), AppExecutorUtil.getAppExecutorService());
+      currentFingerprint = fingerprint;
+    }
+    return current;
+  }
+
+  /**
+   * @param credentials The credentials the user logged in with
+   * @return The session if it has already been resolved for the credentials, null otherwise
+   */
+  public static synchronized SpiraTeamSession getIfResolved(SpiraTeamCredentials credentials) {
+    if(current == null || !getFingerprint(credentials).equals(currentFingerprint)
+       || !current.isDone() || current.isCompletedExceptionally())
+      return null;
+    return current.join();
+  }
+
+  /**
+   * Forgets the session and everything retrieved with the old credentials. Called when the credentials change
+   */
+  public static void invalidate() {
+    synchronized(SpiraTeamSession.class) {
+      current = null;
+      currentFingerprint = null;
+    }
+    SpiraTeamUtil.getReferenceDataCache().invalidate();
+    ProjectMetadataService.clear();
+    SpiraTeamMyPageResolver.clear();
+  }
+
+  /**
+   * @return The session, with the current user and the project roles
+   * @throws IllegalStateException If the current user could not be retrieved
+   */
+  private static SpiraTeamSession resolve(SpiraTeamCredentials credentials) {
+    SpiraTeamUser user = SpiraTeamUtil.getUserInformation(credentials);
+    if(user == null)
+      throw new IllegalStateException("Could not retrieve the current user");
+    Map<Integer, SpiraTeamProjectRole> roles = new HashMap<>();
+    SpiraTeamProjectRole[] projectRoles = SpiraTeamUtil.getProjectRoles(credentials);
+    if(projectRoles != null) {
+      for(SpiraTeamProjectRole role: projectRoles) {
+        roles.put(role.getRoleId(), role);
+      }
+    }
+    return new SpiraTeamSession(user, roles);
+  }
+
+  /**
+   * @return What identifies the credentials, without keeping the token itself
+   */
+  private static String getFingerprint(SpiraTeamCredentials credentials) {
+    return credentials.getUrl() + "\n" + credentials.getUsername() + "\n" + Objects.hashCode(credentials.getToken());
+  }
+
+  /**
+   * @return The ID of the current user
+   */
+  public int getUserId() {
+    return user.getUserId();
+  }
+
+  /**
+   * @return The full name of the current user
+   */
+  public String getFullName() {
+    return user.getFullName();
+  }
+
+  /**
+   * @return The username of the current user
+   */
+  public String getUsername() {
+    return user.getUsername();
+  }
+
+  /**
+   * @return Every project role in the system, keyed by the role ID
+   */
+  public Map<Integer, SpiraTeamProjectRole> getRoles() {
+    return roles;
+  }
+
+  /**
+   * @param roleId The ID of the role
+   * @return The role, null if it does not exist
+   */
+  public SpiraTeamProjectRole getRole(int roleId) {
+    return roles.get(roleId);
+  }
+}
@@ -15,19 +15,29 @@
  */
 package inflectra.idea.core;
 
-import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
-import com.google.gson.internal.LinkedTreeMap;
-import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import inflectra.idea.core.cache.ProjectMetadata;
+import inflectra.idea.core.cache.ReferenceDataCache;
+import inflectra.idea.core.http.*;
+import inflectra.idea.core.json.ArtifactDraftWriter;
+import inflectra.idea.core.json.ArtifactJsonParser;
+import inflectra.idea.core.json.SpiraTeamJson;
 import inflectra.idea.core.model.*;
 import inflectra.idea.core.model.artifacts.Artifact;
+import inflectra.idea.core.model.artifacts.ArtifactDraft;
 import inflectra.idea.core.model.artifacts.ArtifactType;
 
 import java.awt.*;
 import java.io.*;
 import java.net.*;
-import java.util.ArrayList;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Class with a wide variety of utility methods used throughout the plug-in
@@ -35,10 +45,73 @@ import java.util.List;
  * @author Peter Geertsema
  */
 public class SpiraTeamUtil {
+  /**
+   * How many assigned artifacts of each type can be shown before the rest of the list has been read
+   * <p>This is not paging, the v5 endpoints for the artifacts assigned to the user always return the whole list
+   * in a single response. It only decides when the first artifacts are handed over while that response is still
+   * being read, so they can be shown sooner</p>
+   */
+  public static final int PREVIEW_SIZE = 100;
   /**
    * The URL appended to the base URL to access REST. Note that it ends with a slash
    */
   private static String restServiceUrl = "/services/v5_0/RestService.svc/";
+  /**
+   * Performs every HTTP exchange. Shared so that connections are kept alive between calls
+   */
+  private static SpiraTeamTransport transport = new HttpClientTransport();
+  /**
+   * Remembers the responses of conditional GET requests, so unchanged responses are not downloaded again
+   */
+  private static ConditionalGetCache responseCache = new ConditionalGetCache();
+  /**
+   * Counts the bytes received from each endpoint
+   */
+  private static TrafficStatistics traffic = new TrafficStatistics();
+  /**
+   * Times the requests to each endpoint, and counts the status codes and errors they returned
+   */
+  private static RequestStatistics requests = new RequestStatistics();
+  /**
+   * Keeps the roles, users, types and priorities, which rarely change, so they are not requested every time
+   */
+  private static ReferenceDataCache referenceData = new ReferenceDataCache();
+
+  /**
+   * @return The number of bytes received from each endpoint, before and after decompression
+   */
+  public static TrafficStatistics getTrafficStatistics() {
+    return traffic;
+  }
+
+  /**
+   * @return How long each endpoint took to respond and to parse, and the status codes it returned
+   */
+  public static RequestStatistics getRequestStatistics() {
+    return requests;
+  }
+
+  /**
+   * @return The cache of roles, users, types and priorities. Invalidate it when the credentials change
+   */
+  public static ReferenceDataCache getReferenceDataCache() {
+    return referenceData;
+  }
+
+  /**
+   * @return The transport used to perform HTTP requests
+   */
+  public static SpiraTeamTransport getTransport() {
+    return transport;
+  }
+
+  /**
+   * Replaces the transport used to perform HTTP requests
+   * @param newTransport The transport to use from now on
+   */
+  public static void setTransport(SpiraTeamTransport newTransport) {
+    transport = newTransport;
+  }
 
   /**
    * @param artifactTypeId The ID of the artifact type
@@ -79,18 +152,8 @@ public class SpiraTeamUtil {
   }
 
   public static URI getMyPageURL(SpiraTeamCredentials credentials) {
-    try {
-      //need to have a project ID in the URL for it to work
-      List<SpiraTeamProject> availableProjects = getAvailableProjects(credentials);
-      if (availableProjects.size() > 0) {
-        return new URI(credentials.getUrl() + "/" + availableProjects.get(0).getProjectId() + "/MyPage.aspx");
-      }
-    }
-    catch(Exception e) {
-      e.printStackTrace();
-      //should never happen as long as credentials are correct
-    }
-    return null;
+    //need to have a project ID in the URL for it to work, any project the user can see will do
+    return SpiraTeamMyPageResolver.resolve(credentials);
   }
 
   /**
@@ -113,45 +176,127 @@ public class SpiraTeamUtil {
 
   /**
    * @param credentials The information needed to perform the HTTP request
-   * @return An InputStream containing JSON with all requirements assigned to the user
+   * @return All requirements assigned to the user
    * @throws IOException If the URL is invalid
    */
-  public static InputStream getAssignedRequirements(SpiraTeamCredentials credentials) throws IOException {
+  public static List<Artifact> getAssignedRequirements(SpiraTeamCredentials credentials) throws IOException {
+    //nobody is waiting on a preview
+    return getAssignedRequirements(credentials, preview -> {});
+  }
+
+  /**
+   * @param credentials The information needed to perform the HTTP request
+   * @param onPreview Given the first {@link #PREVIEW_SIZE} requirements while the rest are still being read.
+   * Not called if there are no more than that, or the list has not changed
+   * @return All requirements assigned to the user. Cannot be modified, as the same list is returned until it changes
+   * @throws IOException If the URL is invalid
+   */
+  public static List<Artifact> getAssignedRequirements(SpiraTeamCredentials credentials, Consumer<List<Artifact>> onPreview)
+    throws IOException {
     //create the URL
     String url = credentials.getUrl() + restServiceUrl + "requirements?username=" + credentials.getUsername() +
                  "&api-key=" + credentials.getToken();
-    //perform the GET request
-    return httpGet(url);
+    //perform the GET request, reusing the last list if nothing has changed
+    //the list is kept by the cache and handed out again, so nobody may change it
+    return httpGetCached(SpiraTeamEndpoint.ASSIGNED_REQUIREMENTS, url,
+                         stream -> Collections.unmodifiableList(ArtifactJsonParser.parseArtifacts(stream, PREVIEW_SIZE, onPreview)));
   }
 
   /**
    * @param credentials The information needed to perform the HTTP request
-   * @return An InputStream containing JSON with all the tasks assigned to the user
+   * @return All the tasks assigned to the user
    * @throws IOException If the URL is invalid
    */
-  public static InputStream getAssignedTasks(SpiraTeamCredentials credentials) throws IOException {
+  public static List<Artifact> getAssignedTasks(SpiraTeamCredentials credentials) throws IOException {
+    //nobody is waiting on a preview
+    return getAssignedTasks(credentials, preview -> {});
+  }
+
+  /**
+   * @param credentials The information needed to perform the HTTP request
+   * @param onPreview Given the first {@link #PREVIEW_SIZE} tasks while the rest are still being read.
+   * Not called if there are no more than that, or the list has not changed
+   * @return All the tasks assigned to the user. Cannot be modified, as the same list is returned until it changes
+   * @throws IOException If the URL is invalid
+   */
+  public static List<Artifact> getAssignedTasks(SpiraTeamCredentials credentials, Consumer<List<Artifact>> onPreview)
+    throws IOException {
     //create the URL
     String url = credentials.getUrl() + restServiceUrl + "tasks?username=" + credentials.getUsername() +
                  "&api-key=" + credentials.getToken();
-    //perform the GET request
-    return httpGet(url);
+    //perform the GET request, reusing the last list if nothing has changed
+    //the list is kept by the cache and handed out again, so nobody may change it
+    return httpGetCached(SpiraTeamEndpoint.ASSIGNED_TASKS, url,
+                         stream -> Collections.unmodifiableList(ArtifactJsonParser.parseArtifacts(stream, PREVIEW_SIZE, onPreview)));
   }
   
   
   /**
    * @param credentials The information needed to perform the HTTP request
-   * @return An InputStream containing JSON with all the incidents assigned to the user (works with 5.3+)
+   * @return All the incidents assigned to the user (works with 5.3+)
+   * @throws IOException If the URL is invalid
+   */
+  public static List<Artifact> getAssignedIncidents(SpiraTeamCredentials credentials) throws IOException {
+    //nobody is waiting on a preview
+    return getAssignedIncidents(credentials, preview -> {});
+  }
+
+  /**
+   * @param credentials The information needed to perform the HTTP request
+   * @param onPreview Given the first {@link #PREVIEW_SIZE} incidents while the rest are still being read.
+   * Not called if there are no more than that, or the list has not changed
+   * @return All the incidents assigned to the user (works with 5.3+). Cannot be modified, as the same list is
+   * returned until it changes
    * @throws IOException If the URL is invalid
    */
-  public static InputStream getAssignedIncidents(SpiraTeamCredentials credentials) throws IOException {
+  public static List<Artifact> getAssignedIncidents(SpiraTeamCredentials credentials, Consumer<List<Artifact>> onPreview)
+    throws IOException {
     //create the URL
     String url = credentials.getUrl() + restServiceUrl + "incidents?username=" + credentials.getUsername() +
                  "&api-key=" + credentials.getToken();
-    //perform the GET request
-    return httpGet(url);
+    //perform the GET request, reusing the last list if nothing has changed
+    //the list is kept by the cache and handed out again, so nobody may change it
+    return httpGetCached(SpiraTeamEndpoint.ASSIGNED_INCIDENTS, url,
+                         stream -> Collections.unmodifiableList(ArtifactJsonParser.parseArtifacts(stream, PREVIEW_SIZE, onPreview)));
   }
 
  
+  /**
+   * Retrieves everything about a single artifact, including the description which is left out of the lists
+   * @param credentials The information needed to perform the HTTP request
+   * @param artifact The artifact to retrieve, usually a summary from one of the lists
+   * @return The artifact in full, null if it is not a requirement, task or incident
+   * @throws IOException If the URL is invalid or the artifact could not be retrieved
+   */
+  public static Artifact getArtifactDetails(SpiraTeamCredentials credentials, Artifact artifact) throws IOException {
+    SpiraTeamEndpoint endpoint;
+    String path;
+    if(artifact.isRequirement()) {
+      endpoint = SpiraTeamEndpoint.REQUIREMENT;
+      path = "requirements";
+    }
+    else if(artifact.isTask()) {
+      endpoint = SpiraTeamEndpoint.TASK;
+      path = "tasks";
+    }
+    else if(artifact.isIncident()) {
+      endpoint = SpiraTeamEndpoint.INCIDENT;
+      path = "incidents";
+    }
+    else
+      return null;
+    //create the URL
+    String url = credentials.getUrl() + restServiceUrl + "projects/" + artifact.getProjectId() + "/" + path + "/" +
+                 artifact.getArtifactId() + "?username=" + credentials.getUsername() + "&api-key=" + credentials.getToken();
+    //closing the stream hands the connection back so the next request can reuse it
+    try(InputStream stream = httpGet(endpoint, url)) {
+      long start = requests.start();
+      Artifact out = ArtifactJsonParser.parseArtifact(stream);
+      requests.parsed(endpoint, start);
+      return out;
+    }
+  }
+
   /**
    * @param credentials
    * @return The currently authenticated user
@@ -161,19 +306,9 @@ public class SpiraTeamUtil {
     + credentials.getUsername() + "&api-key=" + credentials.getToken();
     try {
       //perform the REST request
-      BufferedReader reader = new BufferedReader(new InputStreamReader(httpGet(url)));
-      Gson gson = new Gson();
-      //turn json into readable information
-      LinkedTreeMap map = gson.fromJson(reader, LinkedTreeMap.class);
-      String fullName = (String) map.get("FullName");
-      int userId = ((Double)map.get("UserId")).intValue();
-      String username = credentials.getUsername();
+      SpiraTeamUser user = getJson(SpiraTeamEndpoint.CURRENT_USER, url, SpiraTeamUser.class);
       //we don't care about the role in this instance
-      int roleId = -1;
-
-      //create the user
-      SpiraTeamUser user = new SpiraTeamUser(fullName, userId, username, roleId);
-      return user;
+      return new SpiraTeamUser(user.getFullName(), user.getUserId(), credentials.getUsername(), -1);
     }
     catch(IOException e) {
       //should never happen
@@ -188,127 +323,52 @@ public class SpiraTeamUtil {
    * @throws IOException If the credentials are invalid
    */
   public static List<SpiraTeamProject> getAvailableProjects(SpiraTeamCredentials credentials) {
+    //every project visible to the user, whether or not they are a member
+    List<SpiraTeamProject> projects;
     try {
-      //create the URL
-      String url = credentials.getUrl() + restServiceUrl + "projects?username="
-                   + credentials.getUsername() + "&api-key=" + credentials.getToken();
-      //perform an HTTP GET request on the specified URL
-      InputStream stream = httpGet(url);
-      Gson gson = new Gson();
-      //create a JSON reader from the JSON sent from the GET request
-      JsonReader reader = new JsonReader(new BufferedReader(new InputStreamReader(stream)));
-      //turn JSON into an ArrayList
-      ArrayList<LinkedTreeMap> jsonList = gson.fromJson(reader, ArrayList.class);
-      //the list to be returned
-      ArrayList<SpiraTeamProject> out = new ArrayList<>();
-      //loop through each map in the list
-      for (LinkedTreeMap map : jsonList) {
-        //retrieve the project ID
-        Double projectId = (Double)map.get("ProjectId");
-        //retrieve the project Name
-        String projectName = (String)map.get("Name");
-
-        //the project to add
-        SpiraTeamProject project = new SpiraTeamProject(projectName, projectId.intValue());
-        //get the users in the current project
-        SpiraTeamUser[] projectUsers = getProjectUsers(credentials, project.getProjectId());
-        //look for the current user
-        for(SpiraTeamUser user: projectUsers) {
-          if(user.getUsername().equals(credentials.getUsername())) {
-            //the user is part of the project
-            SpiraTeamProjectRole[] projectRoles = getProjectRoles(credentials);
-            for(SpiraTeamProjectRole role: projectRoles) {
-              //they have the same role
-              if(role.getRoleId() == user.getRoleId()) {
-                //set the role in the project
-                project.setUserRole(role);
-                //break out looking through roles
-                break;
-              }
-            }
-            //only add project if user is within it
-            out.add(project);
-            //break out of looking through the users
-            break;
-          }
-        }
-
-      }
-      return out;
+      projects = Arrays.asList(getVisibleProjects(credentials));
     }
     catch(Exception e) {
       e.printStackTrace();
+      return null;
+    }
+
+    try {
+      //only keep the projects the user is a member of
+      return new SpiraTeamMembershipResolver(credentials).resolve(projects);
+    }
+    catch(InterruptedException e) {
+      //keep the interrupt so the caller can see it
+      Thread.currentThread().interrupt();
     }
     return null;
   }
 
+  /**
+   * Retrieves every project visible to the user in a single request, without working out their roles
+   * @param credentials The credentials
+   * @return Every project visible to the user, whether or not they are a member
+   * @throws IOException If the projects could not be retrieved
+   */
+  public static SpiraTeamProject[] getVisibleProjects(SpiraTeamCredentials credentials) throws IOException {
+    //create the URL
+    String url = credentials.getUrl() + restServiceUrl + "projects?username="
+                 + credentials.getUsername() + "&api-key=" + credentials.getToken();
+    //perform an HTTP GET request on the specified URL
+    return getJson(SpiraTeamEndpoint.PROJECTS, url, SpiraTeamProject[].class);
+  }
+
   /**
    * Returns an array of the project roles in the system
    * @param credentials
    * @return
    */
   public static SpiraTeamProjectRole[] getProjectRoles(SpiraTeamCredentials credentials) {
+    String url = credentials.getUrl() + restServiceUrl + "projects-roles?username=" + credentials.getUsername() +
+    "&api-key=" + credentials.getToken();
     try {
-      String url = credentials.getUrl() + restServiceUrl + "projects-roles?username=" + credentials.getUsername() +
-      "&api-key=" + credentials.getToken();
       //perform the REST request
-      InputStream inputStream = httpGet(url);
-      Gson gson = new Gson();
-      JsonReader reader = new JsonReader(new BufferedReader(new InputStreamReader(inputStream)));
-      //turn json into a list
-      ArrayList<LinkedTreeMap> jsonList = gson.fromJson(reader, ArrayList.class);
-      //the list we will return
-      SpiraTeamProjectRole[] out = new SpiraTeamProjectRole[jsonList.size()];
-
-      //loop through each map
-      for(int i=0; i<jsonList.size(); i++) {
-        LinkedTreeMap role = jsonList.get(i);
-        //get the permissions
-        List<LinkedTreeMap> permissions = (ArrayList) role.get("Permissions");
-
-        SpiraTeamProjectRole projectRole = new SpiraTeamProjectRole();
-        //used to tell if the projectRole has had its id set
-        boolean hasGottenRoleId = false;
-        //loop through every permission
-        for(LinkedTreeMap permission: permissions) {
-          int artifactId = ((Double)permission.get("ArtifactTypeId")).intValue();
-          //set the role id
-          if(!hasGottenRoleId) {
-            hasGottenRoleId = true;
-            int roleId = ((Double)permission.get("ProjectRoleId")).intValue();
-            projectRole.setRoleId(roleId);
-          }
-          //it is a requirement
-          if(artifactId == 1) {
-            int permissionId = ((Double)permission.get("PermissionId")).intValue();
-            //the user can create requirements
-            if(permissionId == 1) {
-              projectRole.setCanCreateRequirement(true);
-            }
-          }
-
-          //it is an incident
-          else if(artifactId == 3) {
-            int permissionId = ((Double)permission.get("PermissionId")).intValue();
-            //the user can create incidents
-            if(permissionId == 1) {
-              projectRole.setCanCreateIncident(true);
-            }
-          }
-
-          //it is a task
-          else if(artifactId == 6) {
-            int permissionId = ((Double)permission.get("PermissionId")).intValue();
-            //the user can create tasks
-            if(permissionId == 1) {
-              projectRole.setCanCreateTask(true);
-            }
-          }
-        }
-        //add to the array
-        out[i] = projectRole;
-      }
-      return out;
+      return getReferenceData(credentials, 0, SpiraTeamEndpoint.PROJECT_ROLES, url, SpiraTeamProjectRole[].class);
     }
     catch(IOException e) {
       //should never happen
@@ -322,97 +382,101 @@ public class SpiraTeamUtil {
    * @param credentials
    * @param projectId The project to look in
    * @return An array of all the active users in the current project with an empty option
+   * @throws IOException If the users could not be retrieved
    */
-  public static SpiraTeamUser[] getProjectUsers(SpiraTeamCredentials credentials, int projectId) {
-    try {
-      String url = credentials.getUrl() + restServiceUrl + "projects/" + projectId +
-      "/users?username=" + credentials.getUsername() + "&api-key=" + credentials.getToken();
-      //perform an HTTP GET request on the specified URL
-      InputStream stream = httpGet(url);
-      Gson gson = new Gson();
-      //create a JSON reader from the JSON sent from the GET request
-      JsonReader reader = new JsonReader(new BufferedReader(new InputStreamReader(stream)));
-      //turn JSON into a List
-      List<LinkedTreeMap> jsonList = gson.fromJson(reader, ArrayList.class);
-
-      //the array we will return. It is one larger as the above list to account for the empty option
-      SpiraTeamUser[] out = new SpiraTeamUser[jsonList.size() + 1];
-      //empty option will be second
-      out[1] = new SpiraTeamUser("-- None --", -1, "", -1);
-      //used to create the array with the current user first
-      int add = 2;
-      //loop through every item in the json list
-      for(int i=0; i<jsonList.size(); i++) {
-        LinkedTreeMap map = jsonList.get(i);
-        //get the properties
-        String fullName = (String)map.get("FullName");
-        int userId = ((Double)map.get("UserId")).intValue();
-        String username = (String)map.get("UserName");
-        int roleId = ((Double)map.get("ProjectRoleId")).intValue();
-        //create the user
-        SpiraTeamUser user = new SpiraTeamUser(fullName, userId, username, roleId);
-        //if the user matches the logged-in user, store it in the first index of the array
-        if(username.equals(credentials.getUsername())) {
-          //current user in the first index of the array
-          out[0] = user;
-          add = 1;
-        }
-        else {
-          //add the new user to the array
-          if(i + add >= out.length) {
-            out[i] = user;
-          }
-          else
-            out[i + add] = user;
-        }
+  public static SpiraTeamUser[] getProjectUsers(SpiraTeamCredentials credentials, int projectId) throws IOException {
+    String url = credentials.getUrl() + restServiceUrl + "projects/" + projectId +
+    "/users?username=" + credentials.getUsername() + "&api-key=" + credentials.getToken();
+    //perform an HTTP GET request on the specified URL
+    SpiraTeamUser[] users = getReferenceData(credentials, projectId, SpiraTeamEndpoint.PROJECT_USERS, url,
+                                             SpiraTeamUser[].class);
+    return withNoneUser(credentials, users);
+  }
+
+  /**
+   * @param users The users of a project as returned by the server
+   * @return The users with the current user first, followed by an empty option and then everyone else
+   */
+  private static SpiraTeamUser[] withNoneUser(SpiraTeamCredentials credentials, SpiraTeamUser[] users) {
+    //the array we will return. It is one larger than the given array to account for the empty option
+    SpiraTeamUser[] out = new SpiraTeamUser[users.length + 1];
+    //the logged-in user goes first, if they are part of the project
+    int add = 0;
+    for(SpiraTeamUser user: users) {
+      if(user.getUsername().equals(credentials.getUsername())) {
+        out[0] = user;
+        add = 1;
+        break;
       }
-      return out;
     }
-    catch(IOException e) {
-      e.printStackTrace();
-      //should never happen
+    //empty option comes next
+    out[add] = new SpiraTeamUser("-- None --", -1, "", -1);
+    add++;
+    //then everyone else
+    for(SpiraTeamUser user: users) {
+      if(!user.getUsername().equals(credentials.getUsername())) {
+        out[add] = user;
+        add++;
+      }
     }
-    return new SpiraTeamUser[0];
+    return out;
   }
 
   /**
    * @param credentials
    * @param projectId The project to look in
    * @return An array of the incident priorities in the given project
+   * @throws IOException If the priorities could not be retrieved
    */
-  public static SpiraTeamPriority[] getProjectIncidentPriorities(SpiraTeamCredentials credentials, int projectId) {
-    try {
-      String url = credentials.getUrl() + restServiceUrl + "projects/" + projectId + "/incidents/priorities" +
-                   "?username=" + credentials.getUsername() + "&api-key=" + credentials.getToken();
-      //perform an HTTP GET request on the specified URL
-      InputStream stream = httpGet(url);
-      Gson gson = new Gson();
-      //create a JSON reader from the JSON sent from the GET request
-      JsonReader reader = new JsonReader(new BufferedReader(new InputStreamReader(stream)));
-      //turn JSON into a List
-      List<LinkedTreeMap> jsonList = gson.fromJson(reader, ArrayList.class);
-      //the array we will return. It is one larger than the above list to account for an empty option
-      SpiraTeamPriority[] out = new SpiraTeamPriority[jsonList.size() + 1];
-      //empty priority
-      out[0] = new SpiraTeamPriority(-1, "-- None --");
-      for(int i=0; i<jsonList.size(); i++) {
-        LinkedTreeMap map = jsonList.get(i);
-        //get the properties
-        int priorityId = ((Double)map.get("PriorityId")).intValue();
-        String priorityName = (String)map.get("Name");
-        //create the priority
-        SpiraTeamPriority toAdd = new SpiraTeamPriority(priorityId, priorityName);
-        //add the priority to the array, +1 as we need to account for the empty option
-        out[i+1] = toAdd;
-      }
-      return out;
-    }
-    catch(IOException e) {
-      e.printStackTrace();
-      //should never happen
-    }
-    return new SpiraTeamPriority[0];
+  public static SpiraTeamPriority[] getProjectIncidentPriorities(SpiraTeamCredentials credentials, int projectId)
+    throws IOException {
+    String url = credentials.getUrl() + restServiceUrl + "projects/" + projectId + "/incidents/priorities" +
+                 "?username=" + credentials.getUsername() + "&api-key=" + credentials.getToken();
+    //perform an HTTP GET request on the specified URL
+    SpiraTeamPriority[] priorities = getReferenceData(credentials, projectId, SpiraTeamEndpoint.INCIDENT_PRIORITIES,
+                                                      url, SpiraTeamPriority[].class);
+    return withNonePriority(priorities);
+  }
+
+  /**
+   * @param priorities The priorities of a project as returned by the server
+   * @return The priorities with an empty option first
+   */
+  private static SpiraTeamPriority[] withNonePriority(SpiraTeamPriority[] priorities) {
+    //the array we will return. It is one larger than the given array to account for an empty option
+    SpiraTeamPriority[] out = new SpiraTeamPriority[priorities.length + 1];
+    //empty priority
+    out[0] = new SpiraTeamPriority(-1, "-- None --");
+    //add the priorities after the empty option
+    System.arraycopy(priorities, 0, out, 1, priorities.length);
+    return out;
+  }
+
+  /**
+   * Puts together the users, types and incident priorities of a project from the {@link ReferenceDataCache} alone,
+   * never going to the server, so it can be called on the Event Dispatch Thread
+   * @param credentials
+   * @param projectId The project to look in
+   * @return The metadata of the project, null if any of the lists is not cached or has expired
+   */
+  public static ProjectMetadata getCachedProjectMetadata(SpiraTeamCredentials credentials, int projectId) {
+    String url = credentials.getUrl();
+    long ttlMillis = credentials.getReferenceDataTtlMillis();
+    SpiraTeamUser[] users = referenceData.peek(url, projectId, SpiraTeamEndpoint.PROJECT_USERS, ttlMillis);
+    SpiraTeamArtifactType[] requirementTypes =
+      referenceData.peek(url, projectId, SpiraTeamEndpoint.REQUIREMENT_TYPES, ttlMillis);
+    SpiraTeamArtifactType[] taskTypes = referenceData.peek(url, projectId, SpiraTeamEndpoint.TASK_TYPES, ttlMillis);
+    SpiraTeamArtifactType[] incidentTypes =
+      referenceData.peek(url, projectId, SpiraTeamEndpoint.INCIDENT_TYPES, ttlMillis);
+    SpiraTeamPriority[] priorities =
+      referenceData.peek(url, projectId, SpiraTeamEndpoint.INCIDENT_PRIORITIES, ttlMillis);
+    if(users == null || requirementTypes == null || taskTypes == null || incidentTypes == null || priorities == null)
+      return null;
+    //the same shape as the getters return, copying the types so the cached arrays are never modified
+    return new ProjectMetadata(projectId, withNoneUser(credentials, users), requirementTypes.clone(), taskTypes.clone(),
+                               incidentTypes.clone(), withNonePriority(priorities));
   }
+
   /**
    * @return An array of the priorities for requirements
    */
@@ -438,105 +502,90 @@ public class SpiraTeamUtil {
 
   /**
    * @return An array with all of the requirement types for the given project
+   * @throws IOException If the types could not be retrieved
    */
-  public static SpiraTeamArtifactType[] getRequirementTypes(SpiraTeamCredentials credentials, int projectId) {
-    try {
-      String url = credentials.getUrl() + restServiceUrl + "projects/" + projectId +
-      "/requirements/types?username=" + credentials.getUsername() + "&api-key=" + credentials.getToken();
-      //perform the GET request
-      BufferedReader stream = new BufferedReader(new InputStreamReader(httpGet(url)));
-      Gson gson = new Gson();
-      List<LinkedTreeMap> list = gson.fromJson(stream, ArrayList.class);
-      //the list we will turn into an array
-      SpiraTeamArtifactType[] out = new SpiraTeamArtifactType[list.size()];
-      for(int i=0; i<list.size(); i++) {
-        LinkedTreeMap map = list.get(i);
-        //get the properties from JSON
-        int typeId = ((Double)map.get("RequirementTypeId")).intValue();
-        String typeName = (String)map.get("Name");
-        //create a new artifact type
-        SpiraTeamArtifactType toAdd = new SpiraTeamArtifactType(typeId, typeName);
-        //add the artifact type to the array
-        out[i] = toAdd;
-      }
-      return out;
-    }
-    catch(IOException e) {
-      e.printStackTrace();
-      //should never happen
-    }
-    catch(JsonSyntaxException e) {
-      return new SpiraTeamArtifactType[0];
-    }
-    return new SpiraTeamArtifactType[0];
+  public static SpiraTeamArtifactType[] getRequirementTypes(SpiraTeamCredentials credentials, int projectId)
+    throws IOException {
+    String url = credentials.getUrl() + restServiceUrl + "projects/" + projectId +
+    "/requirements/types?username=" + credentials.getUsername() + "&api-key=" + credentials.getToken();
+    return getArtifactTypes(credentials, projectId, SpiraTeamEndpoint.REQUIREMENT_TYPES, url);
   }
 
   /**
    * @return An array with all of the task types for the given project
+   * @throws IOException If the types could not be retrieved
    */
-  public static SpiraTeamArtifactType[] getTaskTypes(SpiraTeamCredentials credentials, int projectId) {
-    try {
-      String url = credentials.getUrl() + restServiceUrl + "projects/" + projectId + "/tasks/types" +
-                   "?username=" + credentials.getUsername() + "&api-key=" + credentials.getToken();
-      //perform the get request
-      BufferedReader stream = new BufferedReader(new InputStreamReader(httpGet(url)));
-      Gson gson = new Gson();
-      List<LinkedTreeMap> list = gson.fromJson(stream, ArrayList.class);
-      SpiraTeamArtifactType[] out = new SpiraTeamArtifactType[list.size()];
-      for(int i=0; i<list.size(); i++) {
-        LinkedTreeMap map = list.get(i);
-        //get the properties from JSON
-        int typeId = ((Double)map.get("TaskTypeId")).intValue();
-        String typeName = (String)map.get("Name");
-        //create a new artifact type
-        SpiraTeamArtifactType toAdd = new SpiraTeamArtifactType(typeId, typeName);
-        //add the artifact type to the array
-        out[i] = toAdd;
-      }
-      return out;
-    }
-    catch(IOException e) {
-      e.printStackTrace();
-      //should never happen
-    }
-    catch(JsonSyntaxException e) {
-      return new SpiraTeamArtifactType[0];
-    }
-    return new SpiraTeamArtifactType[0];
+  public static SpiraTeamArtifactType[] getTaskTypes(SpiraTeamCredentials credentials, int projectId)
+    throws IOException {
+    String url = credentials.getUrl() + restServiceUrl + "projects/" + projectId + "/tasks/types" +
+                 "?username=" + credentials.getUsername() + "&api-key=" + credentials.getToken();
+    return getArtifactTypes(credentials, projectId, SpiraTeamEndpoint.TASK_TYPES, url);
   }
 
   /**
    * @return An array with all of the incident types for the given project
+   * @throws IOException If the types could not be retrieved
+   */
+  public static SpiraTeamArtifactType[] getIncidentTypes(SpiraTeamCredentials credentials, int projectId)
+    throws IOException {
+    String url = credentials.getUrl() + restServiceUrl + "projects/" + projectId + "/incidents/types" +
+                 "?username=" + credentials.getUsername() + "&api-key=" + credentials.getToken();
+    return getArtifactTypes(credentials, projectId, SpiraTeamEndpoint.INCIDENT_TYPES, url);
+  }
+
+  /**
+   * @param projectId The project the types belong to
+   * @param endpoint The types endpoint being queried
+   * @param url The URL of the types
+   * @return The artifact types at the URL
+   * @throws IOException If the types could not be retrieved or read
    */
-  public static SpiraTeamArtifactType[] getIncidentTypes(SpiraTeamCredentials credentials, int projectId) {
+  private static SpiraTeamArtifactType[] getArtifactTypes(SpiraTeamCredentials credentials, int projectId,
+                                                          SpiraTeamEndpoint endpoint, String url) throws IOException {
     try {
-      String url = credentials.getUrl() + restServiceUrl + "projects/" + projectId + "/incidents/types" +
-                   "?username=" + credentials.getUsername() + "&api-key=" + credentials.getToken();
-      //perform the get request
-      BufferedReader stream = new BufferedReader(new InputStreamReader(httpGet(url)));
-      Gson gson = new Gson();
-      List<LinkedTreeMap> list = gson.fromJson(stream, ArrayList.class);
-      SpiraTeamArtifactType[] out = new SpiraTeamArtifactType[list.size()];
-      for(int i=0; i<list.size(); i++) {
-        LinkedTreeMap map = list.get(i);
-        //get the properties from JSON
-        int typeId = ((Double)map.get("IncidentTypeId")).intValue();
-        String typeName = (String)map.get("Name");
-        //create a new artifact type
-        SpiraTeamArtifactType toAdd = new SpiraTeamArtifactType(typeId, typeName);
-        //add the artifact type to the array
-        out[i] = toAdd;
-      }
-      return out;
-    }
-    catch(IOException e) {
-      e.printStackTrace();
-      //should never happen
+      //perform the get request, copying the array so the cached one is never modified
+      return getReferenceData(credentials, projectId, endpoint, url, SpiraTeamArtifactType[].class).clone();
     }
     catch(JsonSyntaxException e) {
-      return new SpiraTeamArtifactType[0];
+      throw new IOException("Could not read the artifact types", e);
     }
-    return new SpiraTeamArtifactType[0];
+  }
+
+  /**
+   * Retrieves a list of reference data through the {@link ReferenceDataCache}
+   * @param projectId The project the list belongs to, 0 if it belongs to the whole server
+   * @param endpoint The endpoint being queried
+   * @param url The URL of the list
+   * @param type The type of the list
+   * @return The list, shared with every other caller, so it must not be modified
+   */
+  private static <T> T getReferenceData(SpiraTeamCredentials credentials, int projectId, SpiraTeamEndpoint endpoint,
+                                        String url, Class<T> type) throws IOException {
+    return referenceData.get(credentials.getUrl(), projectId, endpoint, credentials.getReferenceDataTtlMillis(),
+                             () -> getJson(endpoint, url, type));
+  }
+
+  /**
+   * Creates a new requirement, task or incident in the system
+   * @param credentials
+   * @param draft Everything needed to create the artifact
+   * @return The response of the server, which describes the new artifact. Must be closed
+   * @throws IOException If the artifact could not be created
+   */
+  public static InputStream createArtifact(SpiraTeamCredentials credentials, ArtifactDraft draft) throws IOException {
+    //the JSON is escaped and encoded as it is written into the connection, the description is never copied
+    SpiraTeamRequestBody body = out -> {
+      JsonWriter writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+      ArtifactDraftWriter.write(writer, draft);
+      writer.flush();
+    };
+    if(draft.getType() == ArtifactType.REQUIREMENT)
+      return createRequirement(credentials, body, draft.getProjectId());
+    if(draft.getType() == ArtifactType.TASK)
+      return createTask(credentials, body, draft.getProjectId());
+    if(draft.getType() == ArtifactType.INCIDENT)
+      return createIncident(credentials, body, draft.getProjectId());
+    throw new IllegalArgumentException("Cannot create an artifact of type " + draft.getType());
   }
 
   /**
@@ -545,11 +594,11 @@ public class SpiraTeamUtil {
    * @param body The properties specified to add to the requirement
    * @param projectId The project to create the requirement in
    */
-  public static InputStream createRequirement(SpiraTeamCredentials credentials, String body, int projectId) throws IOException {
+  public static InputStream createRequirement(SpiraTeamCredentials credentials, SpiraTeamRequestBody body, int projectId) throws IOException {
       String url = credentials.getUrl() + restServiceUrl + "projects/" + projectId +
                    "/requirements?username=" + credentials.getUsername() + "&api-key=" + credentials.getToken();
     //post the new requirement, and store the result
-    return httpPost(url, body);
+    return httpPost(SpiraTeamEndpoint.CREATE_REQUIREMENT, url, body);
   }
 
   /**
@@ -558,11 +607,11 @@ public class SpiraTeamUtil {
    * @param body The properties specified to add
    * @param projectId The project to create the task in
    */
-  public static InputStream createTask(SpiraTeamCredentials credentials, String body, int projectId) throws IOException {
+  public static InputStream createTask(SpiraTeamCredentials credentials, SpiraTeamRequestBody body, int projectId) throws IOException {
     String url = credentials.getUrl() + restServiceUrl + "projects/" + projectId +
                  "/tasks?username=" + credentials.getUsername() + "&api-key=" + credentials.getToken();
     //post the new task
-    return httpPost(url, body);
+    return httpPost(SpiraTeamEndpoint.CREATE_TASK, url, body);
   }
 
   /**
@@ -571,56 +620,169 @@ public class SpiraTeamUtil {
    * @param body The properties specified to add
    * @param projectId The project to create the task in
    */
-  public static InputStream createIncident(SpiraTeamCredentials credentials, String body, int projectId) throws IOException{
+  public static InputStream createIncident(SpiraTeamCredentials credentials, SpiraTeamRequestBody body, int projectId) throws IOException{
     String url = credentials.getUrl() + restServiceUrl + "projects/" + projectId +
                  "/incidents?username=" + credentials.getUsername() + "&api-key=" + credentials.getToken();
     //post the new task
-    return httpPost(url, body);
+    return httpPost(SpiraTeamEndpoint.CREATE_INCIDENT, url, body);
+  }
+
+  /**
+   * Performs an HTTP GET request and reads the JSON returned into the given type
+   *
+   * @param endpoint The endpoint being queried, used to keep statistics
+   * @param input The URL to perform the query on
+   * @param type The type to read the JSON into
+   * @return The JSON returned from the GET request
+   * @throws IOException If the URL is invalid or the server returns an error
+   */
+  public static <T> T getJson(SpiraTeamEndpoint endpoint, String input, Class<T> type) throws IOException {
+    //closing the reader hands the connection back so the next request can reuse it
+    try(Reader reader = new InputStreamReader(httpGet(endpoint, input), StandardCharsets.UTF_8)) {
+      long start = requests.start();
+      T out = SpiraTeamJson.getGson().fromJson(reader, type);
+      requests.parsed(endpoint, start);
+      return out;
+    }
   }
 
   /**
    * Performs an HTTP GET request to the specified URL
+   * <p>The stream must be closed once read, so the connection can be reused by the next request</p>
    *
+   * @param endpoint The endpoint being queried, used to keep statistics
    * @param input The URL to perform the query on
    * @return An InputStream containing the JSON returned from the GET request
-   * @throws MalformedURLException If the URL is invalid
+   * @throws IOException If the URL is invalid or the server returns an error
    */
-  public static InputStream httpGet(String input) throws IOException {
-    URL url = new URL(input);
-    URLConnection connection = url.openConnection();
-    //have the connection retrieve JSON
-    connection.setRequestProperty("accept", "application/json; charset=utf-8");
-    connection.connect();
-    return connection.getInputStream();
+  public static InputStream httpGet(SpiraTeamEndpoint endpoint, String input) throws IOException {
+    SpiraTeamResponse response = exchange(endpoint, () -> transport.get(input, createHeaders()));
+    return openBody(endpoint, response);
+  }
+
+  /**
+   * Performs a conditional HTTP GET request to the specified URL and parses the response
+   * <p>If the server says nothing has changed since the last request to the URL, the value parsed
+   * last time is returned without downloading or parsing anything</p>
+   *
+   * @param endpoint The endpoint being queried, used to keep statistics
+   * @param input The URL to perform the query on
+   * @param parser Turns the body of the response into the value to return
+   * @return The parsed body of the response
+   * @throws IOException If the URL is invalid or the server returns an error
+   */
+  public static <T> T httpGetCached(SpiraTeamEndpoint endpoint, String input, ResponseParser<T> parser) throws IOException {
+    Map<String, String> headers = createHeaders();
+    //send the validators from last time, if there are any
+    ConditionalGetCache.Entry cached = responseCache.get(input);
+    if(cached != null) {
+      cached.addValidators(headers);
+    }
+    try(SpiraTeamResponse response = exchange(endpoint, () -> transport.get(input, headers))) {
+      //nothing has changed, so the old value is still correct
+      if(cached != null && response.getStatusCode() == 304) {
+        return cached.getValue();
+      }
+      T value;
+      try(InputStream body = openBody(endpoint, response)) {
+        long start = requests.start();
+        value = parser.parse(body);
+        requests.parsed(endpoint, start);
+      }
+      responseCache.put(input, response, value);
+      return value;
+    }
   }
 
   /**
    * Performs an HTTP POST request ot the specified URL
+   * <p>The stream must be closed once read, so the connection can be reused by the next request</p>
    *
+   * @param endpoint The endpoint being posted to, used to keep statistics
    * @param input The URL to perform the query on
-   * @param body  The request body to be sent
+   * @param body  The request body to be sent, written straight into the connection
    * @return An InputStream containing the JSON returned from the POST request
-   * @throws IOException
-   */
-  public static InputStream httpPost(String input, String body) throws IOException {
-    URL url = new URL(input);
-
-    HttpURLConnection connection = (HttpURLConnection)url.openConnection();
-    //allow sending a request body
-    connection.setDoOutput(true);
-    connection.setRequestMethod("POST");
-    //have the connection send and retrieve JSON
-    connection.setRequestProperty("accept", "application/json; charset=utf-8");
-    connection.setRequestProperty("Content-Type", "application/json; charset=utf-8");
-    connection.connect();
-    //used to send data in the REST request
-    DataOutputStream outputStream = new DataOutputStream(connection.getOutputStream());
-    //write the body to the stream
-    outputStream.writeBytes(body);
-    //send the OutputStream to the server
-    outputStream.flush();
-    outputStream.close();
-    //return the input stream
-    return connection.getInputStream();
+   * @throws IOException If the URL is invalid or the server returns an error
+   */
+  public static InputStream httpPost(SpiraTeamEndpoint endpoint, String input, SpiraTeamRequestBody body) throws IOException {
+    Map<String, String> headers = createHeaders();
+    //have the connection send JSON
+    headers.put("Content-Type", "application/json; charset=utf-8");
+    SpiraTeamResponse response = exchange(endpoint, () -> transport.post(input, headers, body));
+    return openBody(endpoint, response);
+  }
+
+  /**
+   * Performs a single HTTP exchange, recording how long the server took to respond and what it returned
+   * @param endpoint The endpoint the request is sent to
+   * @param exchange Sends the request
+   * @return The response from the server
+   * @throws IOException If the server could not be reached
+   */
+  private static SpiraTeamResponse exchange(SpiraTeamEndpoint endpoint, Exchange exchange) throws IOException {
+    long start = requests.start();
+    SpiraTeamResponse response;
+    try {
+      response = exchange.send();
+    }
+    catch(IOException | RuntimeException e) {
+      requests.requestFailed(endpoint);
+      throw e;
+    }
+    requests.responseReceived(endpoint, response.getStatusCode(), start);
+    return response;
+  }
+
+  /**
+   * Sends a single request with the transport
+   */
+  private interface Exchange {
+    SpiraTeamResponse send() throws IOException;
+  }
+
+  /**
+   * @return The headers sent with every request
+   */
+  private static Map<String, String> createHeaders() {
+    Map<String, String> headers = new HashMap<>();
+    //have the connection retrieve JSON
+    headers.put("accept", "application/json; charset=utf-8");
+    //let the server compress the response, the HTML descriptions compress very well
+    //deflate is not offered, as IIS sends it without the zlib header which the JDK expects
+    headers.put("Accept-Encoding", "gzip");
+    return headers;
+  }
+
+  /**
+   * Checks the response was successful and returns its body, decompressed if the server compressed it
+   * @param endpoint The endpoint the response came from
+   * @param response The response from the server
+   * @return The decompressed body
+   * @throws IOException If the server returned an error. The response is closed before throwing
+   */
+  private static InputStream openBody(SpiraTeamEndpoint endpoint, SpiraTeamResponse response) throws IOException {
+    checkResponse(response);
+    try {
+      return traffic.decode(endpoint, response);
+    }
+    catch(IOException e) {
+      //the body is never going to be read, so give the connection back
+      response.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Throws if the server returned an error, the same way URLConnection used to
+   * @param response The response to check
+   * @return The response passed in, if it was successful
+   * @throws SpiraTeamHttpException If the server returned an error. The response is closed before throwing
+   */
+  private static SpiraTeamResponse checkResponse(SpiraTeamResponse response) throws IOException {
+    if(!response.isSuccessful()) {
+      response.close();
+      throw new SpiraTeamHttpException(response.getStatusCode());
+    }
+    return response;
   }
 }
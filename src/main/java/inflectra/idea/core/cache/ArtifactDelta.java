@@ -0,0 +1,74 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inflectra.idea.core.cache;
+
+import inflectra.idea.core.model.artifacts.Artifact;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * What changed in the assigned artifacts since the previous refresh
+ * @author Peter Geertsema
+ */
+public class ArtifactDelta {
+  /**
+   * Artifacts which were not assigned to the user before
+   */
+  private List<Artifact> added = new ArrayList<>();
+  /**
+   * Artifacts which are still assigned, but have been changed on the server
+   */
+  private List<Artifact> updated = new ArrayList<>();
+  /**
+   * Artifacts which are no longer assigned to the user
+   */
+  private List<Artifact> removed = new ArrayList<>();
+
+  void addAll(ArtifactDelta other) {
+    added.addAll(other.added);
+    updated.addAll(other.updated);
+    removed.addAll(other.removed);
+  }
+
+  /**
+   * @return Artifacts which were not assigned to the user before
+   */
+  public List<Artifact> getAdded() {
+    return added;
+  }
+
+  /**
+   * @return Artifacts which are still assigned, but have been changed on the server
+   */
+  public List<Artifact> getUpdated() {
+    return updated;
+  }
+
+  /**
+   * @return Artifacts which are no longer assigned to the user
+   */
+  public List<Artifact> getRemoved() {
+    return removed;
+  }
+
+  /**
+   * @return True if nothing has changed, false otherwise
+   */
+  public boolean isEmpty() {
+    return added.isEmpty() && updated.isEmpty() && removed.isEmpty();
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inflectra.idea.core.cache;
+
+import com.intellij.util.concurrency.AppExecutorUtil;
+import inflectra.idea.core.SpiraTeamCredentials;
+import inflectra.idea.core.SpiraTeamUtil;
+import inflectra.idea.core.model.artifacts.Artifact;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Fetches the full details of an artifact when it is opened, keeping the most recently opened ones
+ * <p>The lists only hold summaries, so the description of an artifact is only downloaded once the user
+ * actually looks at it. Entries are keyed by the server, the user and the last-update date of the artifact, so
+ * an artifact which has changed on the server, or was fetched for another account, is fetched again</p>
+ * @author Peter Geertsema
+ */
+public class ArtifactDetailsLoader {
+  /**
+   * The most artifacts which are kept at once
+   */
+  public static final int MAX_ENTRIES = 32;
+
+  /**
+   * The full artifacts, least recently used first
+   */
+  private final Map<String, Artifact> cache = Collections.synchronizedMap(new LinkedHashMap<String, Artifact>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Artifact> eldest) {
+      return size() > MAX_ENTRIES;
+    }
+  });
+
+  /**
+   * @param credentials The server and user the artifact is being shown for
+   * @param summary The artifact as it is in the list
+   * @return The full artifact if it has already been fetched, null otherwise
+   */
+  public Artifact getCached(SpiraTeamCredentials credentials, Artifact summary) {
+    return cache.get(getKey(credentials, summary));
+  }
+
+  /**
+   * Fetches the full artifact on a pooled thread
+   * @param credentials The information needed to perform the HTTP request
+   * @param summary The artifact as it is in the list
+   * @param consumer Given the full artifact on the pooled thread, not called if the fetch fails or is cancelled
+   * @return Cancel it with interruption to stop waiting on the server when the user moves on
+   */
+  public Future<?> load(SpiraTeamCredentials credentials, Artifact summary, Consumer<Artifact> consumer) {
+    return AppExecutorUtil.getAppExecutorService().submit(() -> {
+      try {
+        Artifact artifact = SpiraTeamUtil.getArtifactDetails(credentials, summary);
+        //don't bother keeping it if the user has already moved on
+        if(artifact == null || Thread.currentThread().isInterrupted())
+          return;
+        //keep the date from the list, so the entry is found again until the artifact changes
+        if(artifact.getLastUpdateDate() == 0)
+          artifact.setLastUpdateDate(summary.getLastUpdateDate());
+        cache.put(getKey(credentials, summary), artifact);
+        consumer.accept(artifact);
+      }
+      catch(InterruptedIOException e) {
+        //cancelled, the user has selected something else
+      }
+      catch(IOException e) {
+        //the summary stays on screen
+        e.printStackTrace();
+      }
+    });
+  }
+
+  /**
+   * Forgets every artifact, used when the user or server changes
+   */
+  public void clear() {
+    cache.clear();
+  }
+
+  /**
+   * @return What identifies this version of the artifact, as seen by the user on the server
+   */
+  private static String getKey(SpiraTeamCredentials credentials, Artifact artifact) {
+    return credentials.getUrl() + "\n" + credentials.getUsername() + "\n" + artifact.getArtifactType() + ":"
+           + artifact.getProjectId() + ":" + artifact.getArtifactId() + ":" + artifact.getLastUpdateDate();
+  }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inflectra.idea.core.cache;
+
+import inflectra.idea.core.model.artifacts.AssignedArtifacts;
+
+import java.util.Date;
+
+/**
+ * The assigned artifacts from the last successful refresh, along with when they were retrieved
+ * @author Peter Geertsema
+ */
+public class ArtifactSnapshot {
+  private AssignedArtifacts artifacts;
+  /**
+   * When the artifacts were retrieved from the server
+   */
+  private Date asOf;
+
+  public ArtifactSnapshot(AssignedArtifacts artifacts, Date asOf) {
+    this.artifacts = artifacts;
+    this.asOf = asOf;
+  }
+
+  /**
+   * @return The artifacts as they were when the snapshot was taken
+   */
+  public AssignedArtifacts getArtifacts() {
+    return artifacts;
+  }
+
+  /**
+   * @return When the artifacts were retrieved from the server
+   */
+  public Date getAsOf() {
+    return asOf;
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inflectra.idea.core.cache;
+
+import com.google.gson.JsonParseException;
+import com.intellij.openapi.application.PathManager;
+import inflectra.idea.core.SpiraTeamCredentials;
+import inflectra.idea.core.json.SpiraTeamJson;
+import inflectra.idea.core.model.artifacts.Artifact;
+import inflectra.idea.core.model.artifacts.AssignedArtifacts;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Keeps the last successfully retrieved artifacts on disk so the tool window can show them before the server answers
+ * <p>There is one file per server and user, stored in the IDE's system directory. The file name is a hash
+ * of the URL and username, so neither ends up in the file system</p>
+ * @author Peter Geertsema
+ */
+public class ArtifactSnapshotStore {
+  /**
+   * Bumped whenever the format of the file changes, so old snapshots are ignored instead of misread
+   */
+  private static final int VERSION = 1;
+
+  /**
+   * The form the snapshot takes on disk
+   */
+  private static class StoredSnapshot {
+    int version;
+    long asOf;
+    List<Artifact> requirements;
+    List<Artifact> tasks;
+    List<Artifact> incidents;
+  }
+
+  /**
+   * Reads the snapshot from disk. Should not be called on the Event Dispatch Thread
+   * @param credentials The server and user the snapshot belongs to
+   * @return The last snapshot saved for the server and user, null if there is none or it could not be read
+   */
+  public static ArtifactSnapshot load(SpiraTeamCredentials credentials) {
+    Path file = getFile(credentials);
+    if(file == null || !Files.isRegularFile(file))
+      return null;
+    try(Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      StoredSnapshot stored = SpiraTeamJson.getGson().fromJson(reader, StoredSnapshot.class);
+      //ignore snapshots written by a different version of the plug-in
+      if(stored == null || stored.version != VERSION || stored.requirements == null || stored.tasks == null
+         || stored.incidents == null)
+        return null;
+      AssignedArtifacts artifacts = new AssignedArtifacts(stored.requirements, stored.tasks, stored.incidents);
+      return new ArtifactSnapshot(artifacts, new Date(stored.asOf));
+    }
+    catch(IOException | JsonParseException e) {
+      //a broken snapshot just means the window has to wait for the server
+      e.printStackTrace();
+    }
+    return null;
+  }
+
+  /**
+   * Replaces the snapshot for the server and user. Should not be called on the Event Dispatch Thread
+   * @param credentials The server and user the artifacts belong to
+   * @param snapshot The artifacts to save
+   */
+  public static void save(SpiraTeamCredentials credentials, ArtifactSnapshot snapshot) {
+    Path file = getFile(credentials);
+    if(file == null)
+      return;
+    StoredSnapshot stored = new StoredSnapshot();
+    stored.version = VERSION;
+    stored.asOf = snapshot.getAsOf().getTime();
+    stored.requirements = snapshot.getArtifacts().getRequirements();
+    stored.tasks = snapshot.getArtifacts().getTasks();
+    stored.incidents = snapshot.getArtifacts().getIncidents();
+    try {
+      Files.createDirectories(file.getParent());
+      //write next to the real file and move it into place, so a crash can never leave half a snapshot
+      Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+      try {
+        try(Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+          SpiraTeamJson.getGson().toJson(stored, writer);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      }
+      finally {
+        Files.deleteIfExists(temp);
+      }
+    }
+    catch(IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * @return The file holding the snapshot for the server and user, null if the credentials are incomplete
+   */
+  private static Path getFile(SpiraTeamCredentials credentials) {
+    if(credentials.getUrl() == null || credentials.getUsername() == null)
+      return null;
+    return Paths.get(PathManager.getSystemPath(), "spirateam", "snapshots", hash(credentials) + ".json");
+  }
+
+  /**
+   * @return A hex SHA-256 hash of the URL and username
+   */
+  private static String hash(SpiraTeamCredentials credentials) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      String key = credentials.getUrl() + "\n" + credentials.getUsername();
+      StringBuilder out = new StringBuilder();
+      for(byte b: digest.digest(key.getBytes(StandardCharsets.UTF_8))) {
+        out.append(String.format("%02x", b));
+      }
+      return out.toString();
+    }
+    catch(NoSuchAlgorithmException e) {
+      //every JVM is required to support SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+}
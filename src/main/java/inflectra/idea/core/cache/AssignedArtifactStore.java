@@ -0,0 +1,126 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inflectra.idea.core.cache;
+
+import inflectra.idea.core.http.SpiraTeamEndpoint;
+import inflectra.idea.core.model.artifacts.Artifact;
+import inflectra.idea.core.model.artifacts.AssignedArtifacts;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Every artifact assigned to the user, keyed by ID, which each refresh is merged into
+ * <p>When a refresh comes back, artifacts whose last-update date has not changed keep their existing instance,
+ * so only the artifacts which actually changed, or are no longer assigned, end up in the {@link ArtifactDelta}</p>
+ * @author Peter Geertsema
+ */
+public class AssignedArtifactStore {
+  /**
+   * The artifacts from each endpoint, keyed by artifact ID, in the order the server sent them
+   */
+  private final Map<SpiraTeamEndpoint, Map<Integer, Artifact>> artifacts = new EnumMap<>(SpiraTeamEndpoint.class);
+
+  /**
+   * Fills the store with artifacts retrieved earlier, such as from a snapshot, without reporting them as changes
+   */
+  public synchronized void seed(AssignedArtifacts assigned) {
+    merge(SpiraTeamEndpoint.ASSIGNED_REQUIREMENTS, assigned.getRequirements());
+    merge(SpiraTeamEndpoint.ASSIGNED_TASKS, assigned.getTasks());
+    merge(SpiraTeamEndpoint.ASSIGNED_INCIDENTS, assigned.getIncidents());
+  }
+
+  /**
+   * Merges a full refresh into the store
+   * @param requirements The requirements now assigned to the user
+   * @param tasks The tasks now assigned to the user
+   * @param incidents The incidents now assigned to the user
+   * @return Every assigned artifact, along with what changed since the last refresh
+   */
+  public synchronized AssignedArtifacts merge(List<Artifact> requirements, List<Artifact> tasks, List<Artifact> incidents) {
+    ArtifactDelta delta = new ArtifactDelta();
+    delta.addAll(merge(SpiraTeamEndpoint.ASSIGNED_REQUIREMENTS, requirements));
+    delta.addAll(merge(SpiraTeamEndpoint.ASSIGNED_TASKS, tasks));
+    delta.addAll(merge(SpiraTeamEndpoint.ASSIGNED_INCIDENTS, incidents));
+    return new AssignedArtifacts(get(SpiraTeamEndpoint.ASSIGNED_REQUIREMENTS), get(SpiraTeamEndpoint.ASSIGNED_TASKS),
+                                 get(SpiraTeamEndpoint.ASSIGNED_INCIDENTS), delta);
+  }
+
+  /**
+   * Adds or replaces a single artifact, such as one the user has just created, without waiting for a refresh
+   * @param endpoint The endpoint the artifact would have come from
+   * @param artifact The artifact to add
+   * @return Every assigned artifact, with the artifact reported as added or updated
+   */
+  public synchronized AssignedArtifacts put(SpiraTeamEndpoint endpoint, Artifact artifact) {
+    ArtifactDelta delta = new ArtifactDelta();
+    Map<Integer, Artifact> existing = artifacts.computeIfAbsent(endpoint, e -> new LinkedHashMap<>());
+    if(existing.put(artifact.getArtifactId(), artifact) == null)
+      delta.getAdded().add(artifact);
+    else
+      delta.getUpdated().add(artifact);
+    return new AssignedArtifacts(get(SpiraTeamEndpoint.ASSIGNED_REQUIREMENTS), get(SpiraTeamEndpoint.ASSIGNED_TASKS),
+                                 get(SpiraTeamEndpoint.ASSIGNED_INCIDENTS), delta);
+  }
+
+  /**
+   * @param endpoint The endpoint the artifacts came from
+   * @return The artifacts from the endpoint, in the order the server sent them
+   */
+  public synchronized List<Artifact> get(SpiraTeamEndpoint endpoint) {
+    return new ArrayList<>(artifacts.getOrDefault(endpoint, new LinkedHashMap<>()).values());
+  }
+
+  /**
+   * Forgets every artifact, used when the user or server changes
+   */
+  public synchronized void clear() {
+    artifacts.clear();
+  }
+
+  /**
+   * Replaces the artifacts from the endpoint with the given ones, keeping the existing instance of any which have
+   * not been modified
+   */
+  private ArtifactDelta merge(SpiraTeamEndpoint endpoint, List<Artifact> fetched) {
+    ArtifactDelta delta = new ArtifactDelta();
+    Map<Integer, Artifact> existing = artifacts.getOrDefault(endpoint, new LinkedHashMap<>());
+    //rebuilt in the order the server sent them
+    Map<Integer, Artifact> merged = new LinkedHashMap<>();
+    for(Artifact artifact: fetched) {
+      Artifact old = existing.remove(artifact.getArtifactId());
+      if(old == null) {
+        delta.getAdded().add(artifact);
+        merged.put(artifact.getArtifactId(), artifact);
+      }
+      //anything which has the same date as before is unchanged
+      else if(artifact.getLastUpdateDate() != 0 && artifact.getLastUpdateDate() == old.getLastUpdateDate()) {
+        merged.put(old.getArtifactId(), old);
+      }
+      else {
+        delta.getUpdated().add(artifact);
+        merged.put(artifact.getArtifactId(), artifact);
+      }
+    }
+    //whatever is left over has been closed or assigned to someone else
+    delta.getRemoved().addAll(existing.values());
+    artifacts.put(endpoint, merged);
+    return delta;
+  }
+}
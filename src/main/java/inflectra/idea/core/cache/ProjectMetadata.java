@@ -0,0 +1,74 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inflectra.idea.core.cache;
+
+import inflectra.idea.core.model.SpiraTeamArtifactType;
+import inflectra.idea.core.model.SpiraTeamPriority;
+import inflectra.idea.core.model.SpiraTeamUser;
+
+/**
+ * Everything the New Artifact dialog needs to know about a single project
+ * @author Peter Geertsema
+ */
+public class ProjectMetadata {
+  private int projectId;
+  private SpiraTeamUser[] users;
+  private SpiraTeamArtifactType[] requirementTypes;
+  private SpiraTeamArtifactType[] taskTypes;
+  private SpiraTeamArtifactType[] incidentTypes;
+  private SpiraTeamPriority[] incidentPriorities;
+
+  public ProjectMetadata(int projectId, SpiraTeamUser[] users, SpiraTeamArtifactType[] requirementTypes,
+                         SpiraTeamArtifactType[] taskTypes, SpiraTeamArtifactType[] incidentTypes,
+                         SpiraTeamPriority[] incidentPriorities) {
+    this.projectId = projectId;
+    this.users = users;
+    this.requirementTypes = requirementTypes;
+    this.taskTypes = taskTypes;
+    this.incidentTypes = incidentTypes;
+    this.incidentPriorities = incidentPriorities;
+  }
+
+  public int getProjectId() {
+    return projectId;
+  }
+
+  /**
+   * @return The active users in the project, the current user first followed by an empty option
+   */
+  public SpiraTeamUser[] getUsers() {
+    return users;
+  }
+
+  public SpiraTeamArtifactType[] getRequirementTypes() {
+    return requirementTypes;
+  }
+
+  public SpiraTeamArtifactType[] getTaskTypes() {
+    return taskTypes;
+  }
+
+  public SpiraTeamArtifactType[] getIncidentTypes() {
+    return incidentTypes;
+  }
+
+  /**
+   * @return The incident priorities in the project, with an empty option first
+   */
+  public SpiraTeamPriority[] getIncidentPriorities() {
+    return incidentPriorities;
+  }
+}
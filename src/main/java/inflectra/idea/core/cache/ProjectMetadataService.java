@@ -0,0 +1,133 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inflectra.idea.core.cache;
+
+import com.intellij.util.concurrency.AppExecutorUtil;
+import inflectra.idea.core.SpiraTeamCredentials;
+import inflectra.idea.core.SpiraTeamUtil;
+import inflectra.idea.core.model.SpiraTeamArtifactType;
+import inflectra.idea.core.model.SpiraTeamPriority;
+import inflectra.idea.core.model.SpiraTeamUser;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Gets the users, types and priorities of the user's recently used projects, so the New Artifact dialog does not
+ * have to wait on the server every time the project or artifact type is changed
+ * <p>The lists themselves are kept by the {@link ReferenceDataCache}, for as long as its time to live. This only
+ * fetches the five lists of a project at once in the background, and makes sure each project is only being fetched
+ * once at a time. Prefetching the recent projects whenever the dialog is opened keeps them warm</p>
+ * @author Peter Geertsema
+ */
+public class ProjectMetadataService {
+  /**
+   * The most requests which can be running at once
+   */
+  public static final int MAX_CONCURRENT_REQUESTS = 5;
+  /**
+   * Shared by every project so prefetching several projects does not flood the server
+   */
+  private static final ExecutorService executor =
+    AppExecutorUtil.createBoundedApplicationPoolExecutor("SpiraTeam Project Metadata", MAX_CONCURRENT_REQUESTS);
+
+  /**
+   * The metadata still being fetched, keyed by the server, user and project
+   */
+  private static final Map<String, CompletableFuture<ProjectMetadata>> loading = new ConcurrentHashMap<>();
+
+  /**
+   * Starts fetching the metadata of the given projects in the background, unless it is already cached
+   * @param credentials The information needed to perform the HTTP requests
+   * @param projectIds The projects to fetch. Invalid IDs are ignored
+   */
+  public static void prefetch(SpiraTeamCredentials credentials, Iterable<Integer> projectIds) {
+    for(int projectId: projectIds) {
+      if(projectId > 0)
+        getAsync(credentials, projectId);
+    }
+  }
+
+  /**
+   * @param credentials The information needed to perform the HTTP requests
+   * @param projectId The project to get the metadata of
+   * @return A future which completes with the metadata of the project, or exceptionally if any of it could not be
+   * fetched. Already complete if it is cached
+   */
+  public static CompletableFuture<ProjectMetadata> getAsync(SpiraTeamCredentials credentials, int projectId) {
+    //everything can be served from memory, so there is nothing to wait for
+    ProjectMetadata cached = SpiraTeamUtil.getCachedProjectMetadata(credentials, projectId);
+    if(cached != null)
+      return CompletableFuture.completedFuture(cached);
+    String key = getKey(credentials, projectId);
+    CompletableFuture<ProjectMetadata> current = loading.computeIfAbsent(key, k -> load(credentials, projectId));
+    //once it is done it is cached, or it failed and the next call should try again. Registered outside of
+    //computeIfAbsent, as it runs straight away if the fetch has already finished
+    current.whenComplete((m, error) -> loading.remove(key, current));
+    return current;
+  }
+
+  /**
+   * Stops waiting for the metadata being fetched, used when the user or server changes
+   */
+  public static void clear() {
+    loading.clear();
+  }
+
+  /**
+   * Fetches every list of the project at once on the bounded executor
+   */
+  private static CompletableFuture<ProjectMetadata> load(SpiraTeamCredentials credentials, int projectId) {
+    CompletableFuture<SpiraTeamUser[]> users =
+      loadAsync(() -> SpiraTeamUtil.getProjectUsers(credentials, projectId));
+    CompletableFuture<SpiraTeamArtifactType[]> requirementTypes =
+      loadAsync(() -> SpiraTeamUtil.getRequirementTypes(credentials, projectId));
+    CompletableFuture<SpiraTeamArtifactType[]> taskTypes =
+      loadAsync(() -> SpiraTeamUtil.getTaskTypes(credentials, projectId));
+    CompletableFuture<SpiraTeamArtifactType[]> incidentTypes =
+      loadAsync(() -> SpiraTeamUtil.getIncidentTypes(credentials, projectId));
+    CompletableFuture<SpiraTeamPriority[]> incidentPriorities =
+      loadAsync(() -> SpiraTeamUtil.getProjectIncidentPriorities(credentials, projectId));
+    return CompletableFuture.allOf(users, requirementTypes, taskTypes, incidentTypes, incidentPriorities)
+      .thenApply(v -> new ProjectMetadata(projectId, users.join(), requirementTypes.join(), taskTypes.join(),
+                                          incidentTypes.join(), incidentPriorities.join()));
+  }
+
+  /**
+   * @return A future which completes with what the loader returns, or exceptionally with what it throws
+   */
+  private static <T> CompletableFuture<T> loadAsync(ReferenceDataCache.Loader<T> loader) {
+    return CompletableFuture.supplyAsync(() -> {
+      try {
+        return loader.load();
+      }
+      catch(IOException e) {
+        throw new CompletionException(e);
+      }
+    }, executor);
+  }
+
+  /**
+   * @return What identifies the project on a given server for a given user
+   */
+  private static String getKey(SpiraTeamCredentials credentials, int projectId) {
+    return credentials.getUrl() + "\n" + credentials.getUsername() + "\n" + projectId;
+  }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inflectra.idea.core.cache;
+
+import inflectra.idea.core.http.SpiraTeamEndpoint;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the reference data of each server in memory, such as the project roles, users, types and priorities
+ * <p>This data rarely changes, so each list is only requested again once it is older than the time to live,
+ * or once the cache has been invalidated. Entries are keyed by the server URL, project and kind of data, and
+ * the least recently used ones are dropped once there are more than the maximum</p>
+ * @author Peter Geertsema
+ */
+public class ReferenceDataCache {
+  /**
+   * The most lists which are kept unless a different maximum is given
+   */
+  public static final int DEFAULT_MAX_ENTRIES = 256;
+
+  /**
+   * Retrieves a list from the server when it is not in the cache
+   */
+  public interface Loader<T> {
+    T load() throws IOException;
+  }
+
+  /**
+   * A list and when it was retrieved
+   */
+  private static class Entry {
+    private final Object value;
+    private final long loadedAt;
+
+    private Entry(Object value, long loadedAt) {
+      this.value = value;
+      this.loadedAt = loadedAt;
+    }
+  }
+
+  /**
+   * The cached lists, least recently used first. Guarded by itself
+   */
+  private final Map<String, Entry> entries;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  public ReferenceDataCache() {
+    this(DEFAULT_MAX_ENTRIES);
+  }
+
+  /**
+   * @param maxEntries The most lists which are kept at once
+   */
+  public ReferenceDataCache(int maxEntries) {
+    entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+        return size() > maxEntries;
+      }
+    };
+  }
+
+  /**
+   * Returns the cached list, only retrieving it from the server if it is missing or too old
+   * @param url The URL of the server, ex https://demo.spiraservice.net/test
+   * @param projectId The project the list belongs to, 0 if it belongs to the whole server
+   * @param kind The endpoint the list is retrieved from
+   * @param ttlMillis How long the list may be served before it is retrieved again. 0 or less to always retrieve it
+   * @param loader Retrieves the list from the server. A list which could not be retrieved is not cached
+   * @return The list, shared with every other caller, so it must not be modified
+   * @throws IOException If the list had to be retrieved and could not be
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T get(String url, int projectId, SpiraTeamEndpoint kind, long ttlMillis, Loader<T> loader)
+    throws IOException {
+    String key = url + "\n" + projectId + "\n" + kind;
+    Entry entry;
+    synchronized(entries) {
+      entry = entries.get(key);
+    }
+    if(entry != null && System.currentTimeMillis() - entry.loadedAt < ttlMillis) {
+      hits.incrementAndGet();
+      return (T)entry.value;
+    }
+    misses.incrementAndGet();
+    //retrieve it without holding the lock, so other lists can be served in the meantime
+    T value = loader.load();
+    if(value != null && ttlMillis > 0) {
+      synchronized(entries) {
+        entries.put(key, new Entry(value, System.currentTimeMillis()));
+      }
+    }
+    return value;
+  }
+
+  /**
+   * Returns the cached list without ever retrieving it
+   * @param url The URL of the server
+   * @param projectId The project the list belongs to, 0 if it belongs to the whole server
+   * @param kind The endpoint the list is retrieved from
+   * @param ttlMillis How long the list may be served before it is retrieved again
+   * @return The list, shared with every other caller, so it must not be modified. Null if it is missing or too old
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T peek(String url, int projectId, SpiraTeamEndpoint kind, long ttlMillis) {
+    Entry entry;
+    synchronized(entries) {
+      entry = entries.get(url + "\n" + projectId + "\n" + kind);
+    }
+    if(entry == null || System.currentTimeMillis() - entry.loadedAt >= ttlMillis)
+      return null;
+    hits.incrementAndGet();
+    return (T)entry.value;
+  }
+
+  /**
+   * Forgets every list, used when the credentials change
+   */
+  public void invalidate() {
+    synchronized(entries) {
+      entries.clear();
+    }
+  }
+
+  /**
+   * Forgets every list of a single server
+   * @param url The URL of the server
+   */
+  public void invalidate(String url) {
+    synchronized(entries) {
+      entries.keySet().removeIf(key -> key.startsWith(url + "\n"));
+    }
+  }
+
+  /**
+   * @return How many lists were served from the cache
+   */
+  public long getHits() {
+    return hits.get();
+  }
+
+  /**
+   * @return How many lists had to be retrieved from the server
+   */
+  public long getMisses() {
+    return misses.get();
+  }
+
+  /**
+   * @return How many lists are currently cached
+   */
+  public int size() {
+    synchronized(entries) {
+      return entries.size();
+    }
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inflectra.idea.core.http;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers the ETag and Last-Modified validators sent with a response along with the parsed body
+ * <p>The validators are sent back with the next request to the same URL. If the server answers
+ * 304 Not Modified, the parsed body from last time can be used without downloading or parsing anything</p>
+ * @author Peter Geertsema
+ */
+public class ConditionalGetCache {
+  /**
+   * The validators and parsed body of a single response
+   */
+  public static class Entry {
+    private final String eTag;
+    private final String lastModified;
+    private final Object value;
+
+    Entry(String eTag, String lastModified, Object value) {
+      this.eTag = eTag;
+      this.lastModified = lastModified;
+      this.value = value;
+    }
+
+    /**
+     * Adds the validators to the headers of a new request, making it conditional
+     * @param headers The headers of the request
+     */
+    public void addValidators(Map<String, String> headers) {
+      if(eTag != null)
+        headers.put("If-None-Match", eTag);
+      if(lastModified != null)
+        headers.put("If-Modified-Since", lastModified);
+    }
+
+    /**
+     * @return The body parsed from the response, the caller knows what type it is
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getValue() {
+      return (T)value;
+    }
+  }
+
+  /**
+   * The entries, keyed by URL
+   */
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+  /**
+   * @param url The URL the request was made to
+   * @return The entry stored for the URL, null if there isn't one
+   */
+  public Entry get(String url) {
+    return entries.get(url);
+  }
+
+  /**
+   * Stores the parsed body of the response, if the server sent any validators with it
+   * @param url The URL the request was made to
+   * @param response The response from the server
+   * @param value The parsed body of the response
+   */
+  public void put(String url, SpiraTeamResponse response, Object value) {
+    String eTag = response.getHeader("ETag");
+    String lastModified = response.getHeader("Last-Modified");
+    //without validators there is no way to make the next request conditional
+    if(eTag == null && lastModified == null) {
+      entries.remove(url);
+      return;
+    }
+    entries.put(url, new Entry(eTag, lastModified, value));
+  }
+
+  /**
+   * Forgets every stored response
+   */
+  public void clear() {
+    entries.clear();
+  }
+}
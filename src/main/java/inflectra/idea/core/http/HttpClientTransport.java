@@ -0,0 +1,276 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inflectra.idea.core.http;
+
+import com.intellij.util.concurrency.AppExecutorUtil;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Transport backed by a single shared {@link HttpClient}
+ * <p>The client keeps connections alive between calls and negotiates HTTP/2 when the server offers it,
+ * falling back to HTTP/1.1 otherwise. The number of exchanges open against one host at a time is limited,
+ * so a burst of requests queues up on the warm connections instead of opening new ones</p>
+ * @author Peter Geertsema
+ */
+public class HttpClientTransport implements SpiraTeamTransport {
+  /**
+   * The default number of exchanges which can be open against a single host
+   */
+  public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 4;
+  /**
+   * How long to wait for a connection to the server to be made
+   */
+  public static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(15);
+  /**
+   * How long to wait for the server to start answering a request
+   */
+  public static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
+  /**
+   * How long to wait for one of the exchanges open against the host to finish, before giving up
+   */
+  public static final Duration PERMIT_TIMEOUT = Duration.ofSeconds(60);
+
+  /**
+   * How many bytes of a request body can be written ahead of what has been sent
+   */
+  private static final int PIPE_SIZE = 16 * 1024;
+
+  /**
+   * Shared by every request, this is what owns the connection pool
+   */
+  private final HttpClient client;
+  /**
+   * The number of exchanges which can be open against a single host
+   */
+  private final int maxConnectionsPerHost;
+  /**
+   * The permits for each host, keyed by host and port
+   */
+  private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+
+  public HttpClientTransport() {
+    this(DEFAULT_MAX_CONNECTIONS_PER_HOST);
+  }
+
+  public HttpClientTransport(int maxConnectionsPerHost) {
+    this.maxConnectionsPerHost = maxConnectionsPerHost;
+    client = HttpClient.newBuilder()
+      //only used if the server agrees to it during the TLS handshake
+      .version(HttpClient.Version.HTTP_2)
+      .followRedirects(HttpClient.Redirect.NORMAL)
+      //a server which never answers should fail the request, not hang it
+      .connectTimeout(CONNECT_TIMEOUT)
+      .build();
+  }
+
+  @Override
+  public SpiraTeamResponse get(String url, Map<String, String> headers) throws IOException {
+    HttpRequest.Builder request = newRequest(url, headers).GET();
+    return send(request.build());
+  }
+
+  @Override
+  public SpiraTeamResponse post(String url, Map<String, String> headers, SpiraTeamRequestBody body) throws IOException {
+    //every pipe opened for the request, more than one if the request is re-sent
+    List<BodyStream> pipes = new CopyOnWriteArrayList<>();
+    //the length is not known up front, so the body is sent in chunks as it is written
+    HttpRequest.Builder request = newRequest(url, headers)
+      .POST(HttpRequest.BodyPublishers.ofInputStream(() -> {
+        BodyStream pipe = openBody(body);
+        pipes.add(pipe);
+        return pipe;
+      }));
+    SpiraTeamResponse response;
+    try {
+      response = send(request.build());
+      //the client treats a failed read as the end of the body, so a half written body has to be reported here.
+      //Any other status is the server's own answer, often given before it read the whole body, so it is kept
+      if(response.isSuccessful()) {
+        for(BodyStream pipe: pipes) {
+          if(pipe.failure != null) {
+            response.close();
+            throw new IOException("Could not write the request body", pipe.failure);
+          }
+        }
+      }
+    }
+    finally {
+      //the request is over, so a writer still waiting on a full pipe has to give up
+      for(BodyStream pipe: pipes) {
+        pipe.close();
+      }
+    }
+    return response;
+  }
+
+  /**
+   * Starts writing the body on a pooled thread, into a pipe which the client reads from as it sends the request
+   * @return The reading end of the pipe, which records why the body stopped if it could not be written
+   */
+  private static BodyStream openBody(SpiraTeamRequestBody body) {
+    PipedOutputStream out = new PipedOutputStream();
+    BodyStream in;
+    try {
+      in = new BodyStream(out);
+    }
+    catch(IOException e) {
+      //never happens, the pipe is brand new
+      throw new UncheckedIOException(e);
+    }
+    AppExecutorUtil.getAppExecutorService().execute(() -> {
+      try {
+        body.writeTo(out);
+      }
+      catch(IOException | RuntimeException e) {
+        //recorded before the pipe is closed, so the reader never mistakes the end of the pipe for the end of the body
+        in.failure = e;
+      }
+      finally {
+        try {
+          out.close();
+        }
+        catch(IOException e) {
+          //the request is already over
+        }
+      }
+    });
+    return in;
+  }
+
+  /**
+   * @return A request builder for the given URL with the headers already added
+   */
+  private static HttpRequest.Builder newRequest(String url, Map<String, String> headers) throws IOException {
+    HttpRequest.Builder builder = HttpRequest.newBuilder(toURI(url)).timeout(REQUEST_TIMEOUT);
+    for(Map.Entry<String, String> header: headers.entrySet()) {
+      builder.header(header.getKey(), header.getValue());
+    }
+    return builder;
+  }
+
+  /**
+   * Sends the request once a permit for the host is available. The permit is returned when the body is closed
+   * <p>A body which is never closed keeps its permit, so the wait is bounded rather than hanging every later
+   * request to the host</p>
+   */
+  private SpiraTeamResponse send(HttpRequest request) throws IOException {
+    Semaphore permits = hostPermits.computeIfAbsent(hostKey(request.uri()), k -> new Semaphore(maxConnectionsPerHost));
+    try {
+      if(!permits.tryAcquire(PERMIT_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS))
+        throw new HttpTimeoutException("Timed out waiting for a connection to " + request.uri().getHost());
+    }
+    catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for a connection to " + request.uri().getHost());
+    }
+    try {
+      HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+      return new SpiraTeamResponse(response.statusCode(), response.headers().map(),
+                                   new PermitReleasingStream(response.body(), permits));
+    }
+    catch(InterruptedException e) {
+      permits.release();
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for " + request.uri().getHost());
+    }
+    catch(IOException | RuntimeException e) {
+      permits.release();
+      throw e;
+    }
+  }
+
+  /**
+   * @return The key used to limit connections to the host of the URI
+   */
+  private static String hostKey(URI uri) {
+    return uri.getScheme() + "://" + uri.getHost() + ":" + uri.getPort();
+  }
+
+  /**
+   * Turns the URL into a URI, quoting any characters such as the curly braces of the RSS token
+   * @throws MalformedURLException If the URL is invalid
+   */
+  private static URI toURI(String input) throws MalformedURLException {
+    URL url = new URL(input);
+    try {
+      return new URI(url.getProtocol(), url.getUserInfo(), url.getHost(), url.getPort(), url.getPath(), url.getQuery(), url.getRef());
+    }
+    catch(URISyntaxException e) {
+      throw new MalformedURLException(e.getMessage());
+    }
+  }
+
+  /**
+   * The reading end of a request body pipe, which remembers why the body stopped if it could not be written
+   */
+  private static class BodyStream extends PipedInputStream {
+    /**
+     * Why the body could not be written, null if it was written in full
+     */
+    private volatile Exception failure;
+
+    BodyStream(PipedOutputStream out) throws IOException {
+      super(out, PIPE_SIZE);
+    }
+  }
+
+  /**
+   * Gives the host permit back exactly once, when the body is closed
+   */
+  private static class PermitReleasingStream extends FilterInputStream {
+    private final Semaphore permits;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    PermitReleasingStream(InputStream in, Semaphore permits) {
+      super(in);
+      this.permits = permits;
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        super.close();
+      }
+      finally {
+        if(released.compareAndSet(false, true))
+          permits.release();
+      }
+    }
+  }
+}
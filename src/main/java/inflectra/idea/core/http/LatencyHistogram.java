@@ -0,0 +1,118 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inflectra.idea.core.http;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts how long something took, in buckets which are never more than about 6% wide
+ * <p>Recording a value is a single atomic increment, so it can be done on every request without locking.
+ * Values below a microsecond are counted as 0, values above {@link #MAX_MICROS} as the maximum</p>
+ * @author Peter Geertsema
+ */
+public class LatencyHistogram {
+  /**
+   * The longest time which is told apart from longer ones, about 4.5 minutes
+   */
+  public static final long MAX_MICROS = (1L << 28) - 1;
+  /**
+   * How many buckets each power of two is divided into
+   */
+  private static final int SUB_BUCKET_BITS = 4;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  /**
+   * The number of values counted in each bucket
+   */
+  private final AtomicLongArray buckets = new AtomicLongArray(bucketIndex(MAX_MICROS) + 1);
+
+  /**
+   * @param nanos How long it took, in nanoseconds
+   */
+  public void record(long nanos) {
+    buckets.incrementAndGet(bucketIndex(Math.min(Math.max(nanos / 1000, 0), MAX_MICROS)));
+  }
+
+  /**
+   * @return The number of values recorded
+   */
+  public long getCount() {
+    long count = 0;
+    for(int i = 0; i < buckets.length(); i++) {
+      count += buckets.get(i);
+    }
+    return count;
+  }
+
+  /**
+   * @param percentile The percentile to find, ex 95
+   * @return The value which the given percentage of the recorded values are at or below, in nanoseconds.
+   * Rounded up to the end of its bucket, 0 if nothing has been recorded
+   */
+  public long getPercentile(double percentile) {
+    //copy the counts first, so values recorded while walking the buckets are not counted twice
+    long[] counts = new long[buckets.length()];
+    long total = 0;
+    for(int i = 0; i < counts.length; i++) {
+      counts[i] = buckets.get(i);
+      total += counts[i];
+    }
+    if(total == 0)
+      return 0;
+    //the rank of the value being looked for, starting at 1
+    long rank = Math.max(1, (long)Math.ceil(percentile / 100 * total));
+    long seen = 0;
+    for(int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if(seen >= rank)
+        return bucketUpperBound(i) * 1000;
+    }
+    return MAX_MICROS * 1000;
+  }
+
+  /**
+   * Forgets every recorded value
+   */
+  public void reset() {
+    for(int i = 0; i < buckets.length(); i++) {
+      buckets.set(i, 0);
+    }
+  }
+
+  /**
+   * Values below {@link #SUB_BUCKETS} get a bucket each, every power of two above that is split into
+   * {@link #SUB_BUCKETS} equal buckets
+   */
+  private static int bucketIndex(long micros) {
+    if(micros < SUB_BUCKETS)
+      return (int)micros;
+    int exponent = 63 - Long.numberOfLeadingZeros(micros);
+    int shift = exponent - SUB_BUCKET_BITS;
+    int subBucket = (int)(micros >> shift) - SUB_BUCKETS;
+    return (shift + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  /**
+   * @return The largest value, in microseconds, which is counted in the bucket
+   */
+  private static long bucketUpperBound(int index) {
+    if(index < SUB_BUCKETS)
+      return index;
+    int shift = index / SUB_BUCKETS - 1;
+    long lower = (long)(SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+    return lower + (1L << shift) - 1;
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inflectra.idea.core.http;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Times every request to each endpoint, and counts the status codes and errors it returned
+ * <p>The latency is the time from sending the request until the response headers arrive. The parse time is
+ * how long the parser took to turn the body into objects, not counting what the caller does with the body
+ * before or after. Responses are parsed while they are still being downloaded, so it still includes waiting
+ * on the network for the rest of the body. The bytes themselves are counted by {@link TrafficStatistics}</p>
+ * @author Peter Geertsema
+ */
+public class RequestStatistics {
+  /**
+   * The counters of a single endpoint
+   */
+  private static class Counters {
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LatencyHistogram parseTime = new LatencyHistogram();
+    private final ConcurrentMap<Integer, LongAdder> statusCodes = new ConcurrentHashMap<>();
+    private final LongAdder errors = new LongAdder();
+  }
+
+  private final Map<SpiraTeamEndpoint, Counters> counters = new EnumMap<>(SpiraTeamEndpoint.class);
+
+  public RequestStatistics() {
+    //create every counter up front, so the map is never modified after construction
+    for(SpiraTeamEndpoint endpoint: SpiraTeamEndpoint.values()) {
+      counters.put(endpoint, new Counters());
+    }
+  }
+
+  /**
+   * @return The current time, to be passed back once the request is over
+   */
+  public long start() {
+    return System.nanoTime();
+  }
+
+  /**
+   * Records a response, counting it as an error if the server returned one
+   * @param endpoint The endpoint the response came from
+   * @param statusCode The status code of the response
+   * @param start The time returned by {@link #start()} before the request was sent
+   */
+  public void responseReceived(SpiraTeamEndpoint endpoint, int statusCode, long start) {
+    Counters endpointCounters = counters.get(endpoint);
+    endpointCounters.latency.record(System.nanoTime() - start);
+    endpointCounters.statusCodes.computeIfAbsent(statusCode, k -> new LongAdder()).increment();
+    if(statusCode >= 400)
+      endpointCounters.errors.increment();
+  }
+
+  /**
+   * Records a request which never got a response, such as one which timed out
+   * @param endpoint The endpoint the request was sent to
+   */
+  public void requestFailed(SpiraTeamEndpoint endpoint) {
+    counters.get(endpoint).errors.increment();
+  }
+
+  /**
+   * Records how long it took to parse the body of a response
+   * @param endpoint The endpoint the response came from
+   * @param start The time returned by {@link #start()} just before parsing began
+   */
+  public void parsed(SpiraTeamEndpoint endpoint, long start) {
+    counters.get(endpoint).parseTime.record(System.nanoTime() - start);
+  }
+
+  /**
+   * @return How long it took the endpoint to respond
+   */
+  public LatencyHistogram getLatency(SpiraTeamEndpoint endpoint) {
+    return counters.get(endpoint).latency;
+  }
+
+  /**
+   * @return How long it took to parse the responses of the endpoint
+   */
+  public LatencyHistogram getParseTime(SpiraTeamEndpoint endpoint) {
+    return counters.get(endpoint).parseTime;
+  }
+
+  /**
+   * @return The number of responses with each status code returned by the endpoint, in order of status code
+   */
+  public SortedMap<Integer, Long> getStatusCodes(SpiraTeamEndpoint endpoint) {
+    SortedMap<Integer, Long> out = new TreeMap<>();
+    counters.get(endpoint).statusCodes.forEach((statusCode, count) -> out.put(statusCode, count.sum()));
+    return out;
+  }
+
+  /**
+   * @return The number of error responses from the endpoint, and requests to it which got no response
+   */
+  public long getErrors(SpiraTeamEndpoint endpoint) {
+    return counters.get(endpoint).errors.sum();
+  }
+
+}
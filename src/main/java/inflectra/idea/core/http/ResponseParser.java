@@ -0,0 +1,33 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inflectra.idea.core.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Turns the body of a response into something java understands
+ * @param <T> The type the body is parsed into
+ * @author Peter Geertsema
+ */
+public interface ResponseParser<T> {
+  /**
+   * @param body The body sent by the server. Closed by the caller
+   * @return The parsed body
+   * @throws IOException If the body could not be read
+   */
+  T parse(InputStream body) throws IOException;
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inflectra.idea.core.http;
+
+/**
+ * The logical REST endpoints the plug-in talks to, used to keep statistics about each one
+ * @author Peter Geertsema
+ */
+public enum SpiraTeamEndpoint {
+  ASSIGNED_REQUIREMENTS("Assigned requirements"),
+  ASSIGNED_TASKS("Assigned tasks"),
+  ASSIGNED_INCIDENTS("Assigned incidents"),
+  REQUIREMENT("Requirement details"),
+  TASK("Task details"),
+  INCIDENT("Incident details"),
+  CURRENT_USER("Current user"),
+  PROJECTS("Projects"),
+  PROJECT_ROLES("Project roles"),
+  PROJECT_USERS("Project users"),
+  INCIDENT_PRIORITIES("Incident priorities"),
+  REQUIREMENT_TYPES("Requirement types"),
+  TASK_TYPES("Task types"),
+  INCIDENT_TYPES("Incident types"),
+  CREATE_REQUIREMENT("Create requirement"),
+  CREATE_TASK("Create task"),
+  CREATE_INCIDENT("Create incident");
+
+  private String displayName;
+
+  SpiraTeamEndpoint(String displayName) {
+    this.displayName = displayName;
+  }
+
+  /**
+   * @return The name of the endpoint shown to the user
+   */
+  public String getDisplayName() {
+    return displayName;
+  }
+
+  @Override
+  public String toString() {
+    return getDisplayName();
+  }
+}
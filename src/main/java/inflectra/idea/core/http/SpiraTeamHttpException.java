@@ -0,0 +1,45 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inflectra.idea.core.http;
+
+import java.io.IOException;
+
+/**
+ * Thrown when the server answers a request with an error status code
+ * @author Peter Geertsema
+ */
+public class SpiraTeamHttpException extends IOException {
+  private final int statusCode;
+
+  public SpiraTeamHttpException(int statusCode) {
+    super("Server returned HTTP response code: " + statusCode);
+    this.statusCode = statusCode;
+  }
+
+  /**
+   * @return The status code returned by the server
+   */
+  public int getStatusCode() {
+    return statusCode;
+  }
+
+  /**
+   * @return True if the server rejected the credentials, rather than failing for some other reason
+   */
+  public boolean isUnauthorized() {
+    return statusCode == 401 || statusCode == 403;
+  }
+}
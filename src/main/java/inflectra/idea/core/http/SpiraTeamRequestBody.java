@@ -0,0 +1,44 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inflectra.idea.core.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The body of a request, written straight into the connection while the request is being sent
+ * <p>Nothing is built up in memory first, so a large body such as a pasted log is never copied into an
+ * intermediate string or byte array. The body may be written more than once if the request is re-sent,
+ * for example after a redirect</p>
+ * @author Peter Geertsema
+ */
+public interface SpiraTeamRequestBody {
+  /**
+   * Writes the whole body
+   * @param out Where the body is sent, closed by the caller once this returns
+   * @throws IOException If the body could not be written
+   */
+  void writeTo(OutputStream out) throws IOException;
+
+  /**
+   * @param body A body which is already in memory
+   * @return The body, sent as UTF-8
+   */
+  static SpiraTeamRequestBody ofString(String body) {
+    return out -> out.write(body.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inflectra.idea.core.http;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A response returned by a {@link SpiraTeamTransport}
+ * <p>Closing the response closes the body, which hands the connection back to the transport</p>
+ * @author Peter Geertsema
+ */
+public class SpiraTeamResponse implements Closeable {
+  private int statusCode;
+  /**
+   * The response headers, looked up without regard to case
+   */
+  private Map<String, List<String>> headers;
+  private InputStream body;
+
+  public SpiraTeamResponse(int statusCode, Map<String, List<String>> headers, InputStream body) {
+    this.statusCode = statusCode;
+    this.headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    this.headers.putAll(headers);
+    this.body = body;
+  }
+
+  /**
+   * @return The HTTP status code, ex 200
+   */
+  public int getStatusCode() {
+    return statusCode;
+  }
+
+  /**
+   * @param name The name of the header, case insensitive
+   * @return The first value of the header, null if the server did not send it
+   */
+  public String getHeader(String name) {
+    List<String> values = headers.getOrDefault(name, Collections.emptyList());
+    if(values.isEmpty())
+      return null;
+    return values.get(0);
+  }
+
+  /**
+   * @return The body sent by the server
+   */
+  public InputStream getBody() {
+    return body;
+  }
+
+  /**
+   * @return True if the status code is in the 2xx range, false otherwise
+   */
+  public boolean isSuccessful() {
+    return statusCode >= 200 && statusCode < 300;
+  }
+
+  @Override
+  public void close() throws IOException {
+    body.close();
+  }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inflectra.idea.core.http;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * The layer which actually performs the HTTP exchanges for {@link inflectra.idea.core.SpiraTeamUtil}
+ * <p>Implementations are expected to reuse connections between calls, so the response returned must always be closed</p>
+ * @author Peter Geertsema
+ */
+public interface SpiraTeamTransport {
+  /**
+   * Performs an HTTP GET request
+   * @param url The URL to perform the request on
+   * @param headers The request headers to send
+   * @return The response from the server. Must be closed by the caller
+   * @throws IOException If the server could not be reached
+   */
+  SpiraTeamResponse get(String url, Map<String, String> headers) throws IOException;
+
+  /**
+   * Performs an HTTP POST request
+   * @param url The URL to perform the request on
+   * @param headers The request headers to send
+   * @param body The request body, written into the connection as the request is sent
+   * @return The response from the server. Must be closed by the caller
+   * @throws IOException If the server could not be reached or the body could not be written
+   */
+  SpiraTeamResponse post(String url, Map<String, String> headers, SpiraTeamRequestBody body) throws IOException;
+}
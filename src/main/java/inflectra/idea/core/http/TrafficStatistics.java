@@ -0,0 +1,124 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inflectra.idea.core.http;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Counts the bytes received from each endpoint, both as sent over the wire and after decompression
+ * <p>Comparing the two shows how much bandwidth compressed responses are saving</p>
+ * @author Peter Geertsema
+ */
+public class TrafficStatistics {
+  /**
+   * The counters of a single endpoint
+   */
+  private static class Counters {
+    private final LongAdder responses = new LongAdder();
+    private final LongAdder wireBytes = new LongAdder();
+    private final LongAdder decodedBytes = new LongAdder();
+  }
+
+  private final Map<SpiraTeamEndpoint, Counters> counters = new EnumMap<>(SpiraTeamEndpoint.class);
+
+  public TrafficStatistics() {
+    //create every counter up front, so the map is never modified after construction
+    for(SpiraTeamEndpoint endpoint: SpiraTeamEndpoint.values()) {
+      counters.put(endpoint, new Counters());
+    }
+  }
+
+  /**
+   * Wraps the body of the response so it is decompressed, if needed, and counted while it is read
+   * @param endpoint The endpoint the response came from
+   * @param response The response from the server
+   * @return The decompressed body
+   * @throws IOException If the compressed body is corrupt
+   */
+  public InputStream decode(SpiraTeamEndpoint endpoint, SpiraTeamResponse response) throws IOException {
+    Counters endpointCounters = counters.get(endpoint);
+    endpointCounters.responses.increment();
+    InputStream body = new CountingInputStream(response.getBody(), endpointCounters.wireBytes);
+    String encoding = response.getHeader("Content-Encoding");
+    //only gzip is asked for, servers disagree on whether deflate is wrapped in a zlib header
+    if("gzip".equalsIgnoreCase(encoding)) {
+      body = new GZIPInputStream(body);
+    }
+    return new CountingInputStream(body, endpointCounters.decodedBytes);
+  }
+
+  /**
+   * @return The number of responses read from the endpoint
+   */
+  public long getResponses(SpiraTeamEndpoint endpoint) {
+    return counters.get(endpoint).responses.sum();
+  }
+
+  /**
+   * @return The number of bytes received from the endpoint, as sent over the wire
+   */
+  public long getWireBytes(SpiraTeamEndpoint endpoint) {
+    return counters.get(endpoint).wireBytes.sum();
+  }
+
+  /**
+   * @return The number of bytes received from the endpoint, after decompression
+   */
+  public long getDecodedBytes(SpiraTeamEndpoint endpoint) {
+    return counters.get(endpoint).decodedBytes.sum();
+  }
+
+  /**
+   * Adds the number of bytes read to a counter
+   */
+  private static class CountingInputStream extends FilterInputStream {
+    private final LongAdder count;
+
+    CountingInputStream(InputStream in, LongAdder count) {
+      super(in);
+      this.count = count;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int read = super.read();
+      if(read != -1)
+        count.increment();
+      return read;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int read = super.read(b, off, len);
+      if(read > 0)
+        count.add(read);
+      return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long skipped = super.skip(n);
+      count.add(skipped);
+      return skipped;
+    }
+  }
+}
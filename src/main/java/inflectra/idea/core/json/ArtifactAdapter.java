@@ -0,0 +1,81 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inflectra.idea.core.json;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import inflectra.idea.core.model.artifacts.Artifact;
+
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * Reads and writes requirements, tasks and incidents using the same property names as the server
+ * <p>Reading is done by {@link ArtifactJsonParser}, so anything written here can be read back by it</p>
+ * @author Peter Geertsema
+ */
+class ArtifactAdapter extends TypeAdapter<Artifact> {
+
+  @Override
+  public void write(JsonWriter out, Artifact artifact) throws IOException {
+    if(artifact == null) {
+      out.nullValue();
+      return;
+    }
+    boolean serializeNulls = out.getSerializeNulls();
+    //the type is decided by which properties are present, so they have to be written even when null
+    out.setSerializeNulls(true);
+    try {
+      out.beginObject();
+      out.name("ProjectId").value(artifact.getProjectId());
+      out.name("ProjectName").value(artifact.getProjectName());
+      out.name("Name").value(artifact.getName());
+      out.name("Description").value(artifact.getDescription());
+      if(artifact.getOwnerId() != 0)
+        out.name("OwnerId").value(artifact.getOwnerId());
+      if(artifact.getLastUpdateDate() != 0)
+        out.name("LastUpdateDate").value(Instant.ofEpochMilli(artifact.getLastUpdateDate()).toString());
+      if(artifact.isRequirement()) {
+        out.name("RequirementId").value(artifact.getArtifactId());
+        out.name("RequirementTypeName").value(artifact.getType());
+        out.name("ImportanceName").value(artifact.getPriorityName());
+        out.name("StatusName").value(artifact.getStatus());
+      }
+      else if(artifact.isIncident()) {
+        out.name("IncidentId").value(artifact.getArtifactId());
+        out.name("IncidentTypeName").value(artifact.getType());
+        out.name("PriorityName").value(artifact.getPriorityName());
+        out.name("IncidentStatusName").value(artifact.getStatus());
+      }
+      else if(artifact.isTask()) {
+        out.name("TaskId").value(artifact.getArtifactId());
+        out.name("TaskTypeName").value(artifact.getType());
+        out.name("TaskPriorityName").value(artifact.getPriorityName());
+        out.name("TaskStatusName").value(artifact.getStatus());
+      }
+      out.endObject();
+    }
+    finally {
+      out.setSerializeNulls(serializeNulls);
+    }
+  }
+
+  @Override
+  public Artifact read(JsonReader in) throws IOException {
+    return ArtifactJsonParser.readArtifact(in);
+  }
+}
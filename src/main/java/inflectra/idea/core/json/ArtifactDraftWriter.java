@@ -0,0 +1,76 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inflectra.idea.core.json;
+
+import com.google.gson.stream.JsonWriter;
+import inflectra.idea.core.model.artifacts.ArtifactDraft;
+import inflectra.idea.core.model.artifacts.ArtifactType;
+
+import java.io.IOException;
+
+/**
+ * Writes the body of the request which creates an artifact straight as JSON tokens
+ * <p>The writer escapes the name and description as they are written, so neither is copied into a JSON tree
+ * or an intermediate string first</p>
+ * @author Peter Geertsema
+ */
+public class ArtifactDraftWriter {
+  /**
+   * The status given to new tasks
+   */
+  private static final int NEW_TASK_STATUS_ID = 1;
+
+  /**
+   * Writes the draft as a single JSON object. Each type names its fields differently
+   * @param writer Where the object is written
+   * @param draft The artifact to create
+   * @throws IOException If the writer could not be written to
+   */
+  public static void write(JsonWriter writer, ArtifactDraft draft) throws IOException {
+    //the names of the type and priority fields
+    String typeField;
+    String priorityField;
+    if(draft.getType() == ArtifactType.REQUIREMENT) {
+      typeField = "RequirementTypeId";
+      priorityField = "ImportanceId";
+    }
+    else if(draft.getType() == ArtifactType.TASK) {
+      typeField = "TaskTypeId";
+      priorityField = "TaskPriorityId";
+    }
+    else if(draft.getType() == ArtifactType.INCIDENT) {
+      typeField = "IncidentTypeId";
+      priorityField = "PriorityId";
+    }
+    else {
+      throw new IllegalArgumentException("Cannot create an artifact of type " + draft.getType());
+    }
+    writer.beginObject();
+    writer.name("Name").value(draft.getName());
+    writer.name("Description").value(draft.getDescription());
+    if(draft.getType() == ArtifactType.TASK) {
+      //TODO: Add support for different task status ID's
+      writer.name("TaskStatusId").value(NEW_TASK_STATUS_ID);
+    }
+    writer.name(typeField).value(draft.getTypeId());
+    //only add the owner and priority if they are not -1, which is assigned if the user makes no choice
+    if(draft.getOwnerId() != -1)
+      writer.name("OwnerId").value(draft.getOwnerId());
+    if(draft.getPriorityId() != -1)
+      writer.name(priorityField).value(draft.getPriorityId());
+    writer.endObject();
+  }
+}
@@ -0,0 +1,286 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inflectra.idea.core.json;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import inflectra.idea.core.model.artifacts.Artifact;
+import inflectra.idea.core.model.artifacts.Incident;
+import inflectra.idea.core.model.artifacts.Requirement;
+import inflectra.idea.core.model.artifacts.Task;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads requirements, tasks and incidents straight from the JSON tokens sent by the server
+ * <p>Each artifact is created as soon as its object has been read, without building a map of the whole
+ * response first. Fields which are never shown are skipped without being read. Lists are read as summaries,
+ * without the description, which is only fetched when an artifact is opened</p>
+ * @author Peter Geertsema
+ */
+public class ArtifactJsonParser {
+
+  /**
+   * @param stream The JSON array of artifacts returned by the server
+   * @return Summaries of the artifacts in the stream, skipping any which are not supported
+   * @throws IOException If the stream could not be read or is not valid JSON
+   */
+  public static List<Artifact> parseArtifacts(InputStream stream) throws IOException {
+    List<Artifact> out = new ArrayList<>();
+    JsonReader reader = new JsonReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+    readArtifacts(reader, out::add);
+    return out;
+  }
+
+  /**
+   * @param stream The JSON array of artifacts returned by the server
+   * @param previewSize How many artifacts are in the preview
+   * @param onPreview Given the first artifacts as soon as they have been read, while the rest of the stream is
+   * still being read. Not called if the stream holds no more than the preview
+   * @return Summaries of every artifact in the stream, skipping any which are not supported
+   * @throws IOException If the stream could not be read or is not valid JSON
+   */
+  public static List<Artifact> parseArtifacts(InputStream stream, int previewSize, Consumer<List<Artifact>> onPreview)
+    throws IOException {
+    List<Artifact> out = new ArrayList<>();
+    JsonReader reader = new JsonReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+    readArtifacts(reader, artifact -> {
+      out.add(artifact);
+      //there is more to come, so hand the preview over once, instead of waiting for everything
+      if(out.size() == previewSize + 1)
+        onPreview.accept(new ArrayList<>(out.subList(0, previewSize)));
+    });
+    return out;
+  }
+
+  /**
+   * Reads a JSON array of artifacts as summaries, handing each one over as soon as it has been read
+   * @param reader The reader, positioned before the array
+   * @param consumer Receives every supported artifact, in the order they are in the array
+   * @throws IOException If the reader could not be read or is not valid JSON
+   */
+  public static void readArtifacts(JsonReader reader, Consumer<Artifact> consumer) throws IOException {
+    reader.beginArray();
+    while(reader.hasNext()) {
+      Artifact artifact = readArtifact(reader, true);
+      if(artifact != null)
+        consumer.accept(artifact);
+    }
+    reader.endArray();
+  }
+
+  /**
+   * @param stream A single JSON artifact returned by the server
+   * @return The artifact in full, null if it is not a requirement, incident or task
+   * @throws IOException If the stream could not be read or is not valid JSON
+   */
+  public static Artifact parseArtifact(InputStream stream) throws IOException {
+    return readArtifact(new JsonReader(new InputStreamReader(stream, StandardCharsets.UTF_8)));
+  }
+
+  /**
+   * Reads a single artifact object in full. Checks which type it is dynamically
+   * @param reader The reader, positioned before the object
+   * @return The artifact, null if the object is not a requirement, incident or task
+   * @throws IOException If the reader could not be read or is not valid JSON
+   */
+  public static Artifact readArtifact(JsonReader reader) throws IOException {
+    return readArtifact(reader, false);
+  }
+
+  /**
+   * Reads a single artifact object. Checks which type it is dynamically
+   * @param reader The reader, positioned before the object
+   * @param summary If true, the description is skipped without being read
+   * @return The artifact, null if the object is not a requirement, incident or task
+   * @throws IOException If the reader could not be read or is not valid JSON
+   */
+  private static Artifact readArtifact(JsonReader reader, boolean summary) throws IOException {
+    //common properties
+    int projectId = 0;
+    String projectName = null;
+    String name = null;
+    String description = null;
+    //the IDs, only one will be present
+    int requirementId = 0;
+    int incidentId = 0;
+    int taskId = 0;
+    //the properties which are named differently for each type
+    String importanceName = null;
+    String priorityName = null;
+    String taskPriorityName = null;
+    String statusName = null;
+    String incidentStatusName = null;
+    String taskStatusName = null;
+    String incidentTypeName = null;
+    String taskTypeName = null;
+    long lastUpdateDate = 0;
+    int ownerId = 0;
+    //the type is decided by which of these properties are present
+    boolean isRequirement = false;
+    boolean isIncident = false;
+    boolean isTask = false;
+
+    reader.beginObject();
+    while(reader.hasNext()) {
+      switch(reader.nextName()) {
+        case "ProjectId":
+          projectId = nextInt(reader);
+          break;
+        case "ProjectName":
+          projectName = nextString(reader);
+          break;
+        case "Name":
+          name = nextString(reader);
+          break;
+        case "Description":
+          //the description can be large, so it is only kept when the artifact is opened
+          if(summary)
+            reader.skipValue();
+          else
+            description = nextString(reader);
+          break;
+        case "RequirementId":
+          requirementId = nextInt(reader);
+          break;
+        case "IncidentId":
+          incidentId = nextInt(reader);
+          break;
+        case "TaskId":
+          taskId = nextInt(reader);
+          break;
+        case "ImportanceName":
+          importanceName = nextString(reader);
+          break;
+        case "PriorityName":
+          priorityName = nextString(reader);
+          break;
+        case "TaskPriorityName":
+          isTask = true;
+          taskPriorityName = nextString(reader);
+          break;
+        case "StatusName":
+          statusName = nextString(reader);
+          break;
+        case "IncidentStatusName":
+          incidentStatusName = nextString(reader);
+          break;
+        case "TaskStatusName":
+          taskStatusName = nextString(reader);
+          break;
+        case "RequirementTypeName":
+          isRequirement = true;
+          //not shown for requirements
+          reader.skipValue();
+          break;
+        case "IncidentTypeName":
+          isIncident = true;
+          incidentTypeName = nextString(reader);
+          break;
+        case "TaskTypeName":
+          taskTypeName = nextString(reader);
+          break;
+        case "LastUpdateDate":
+          lastUpdateDate = parseDate(nextString(reader));
+          break;
+        case "OwnerId":
+          ownerId = nextInt(reader);
+          break;
+        default:
+          //we never use the property, so don't bother reading it
+          reader.skipValue();
+      }
+    }
+    reader.endObject();
+
+    Artifact artifact;
+    if(isRequirement) {
+      artifact = new Requirement(projectId, projectName, requirementId, name, importanceName);
+      artifact.setStatus(statusName);
+    }
+    else if(isIncident) {
+      artifact = new Incident(projectId, projectName, incidentId, name, priorityName);
+      artifact.setStatus(incidentStatusName);
+      artifact.setType(incidentTypeName);
+    }
+    else if(isTask) {
+      artifact = new Task(projectId, projectName, taskId, name, taskPriorityName);
+      artifact.setStatus(taskStatusName);
+      artifact.setType(taskTypeName);
+    }
+    else {
+      //not a supported artifact type
+      return null;
+    }
+    artifact.setDescription(description);
+    artifact.setLastUpdateDate(lastUpdateDate);
+    artifact.setOwnerId(ownerId);
+    return artifact;
+  }
+
+  /**
+   * @param date A date sent by the server, ex 2017-07-19T14:22:11.363. Dates without an offset are in UTC
+   * @return The date in milliseconds since the epoch, 0 if there is no date or it could not be read
+   */
+  static long parseDate(String date) {
+    if(date == null)
+      return 0;
+    try {
+      return OffsetDateTime.parse(date).toInstant().toEpochMilli();
+    }
+    catch(DateTimeParseException e) {
+      //the server does not always send an offset
+    }
+    try {
+      return LocalDateTime.parse(date).toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+    catch(DateTimeParseException e) {
+      return 0;
+    }
+  }
+
+  /**
+   * @return The next string, or null if the value is null
+   */
+  static String nextString(JsonReader reader) throws IOException {
+    if(reader.peek() == JsonToken.NULL) {
+      reader.nextNull();
+      return null;
+    }
+    return reader.nextString();
+  }
+
+  /**
+   * @return The next integer, or 0 if the value is null
+   */
+  static int nextInt(JsonReader reader) throws IOException {
+    if(reader.peek() == JsonToken.NULL) {
+      reader.nextNull();
+      return 0;
+    }
+    return reader.nextInt();
+  }
+}
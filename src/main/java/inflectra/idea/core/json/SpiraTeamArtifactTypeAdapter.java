@@ -0,0 +1,72 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inflectra.idea.core.json;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import inflectra.idea.core.model.SpiraTeamArtifactType;
+
+import java.io.IOException;
+
+import static inflectra.idea.core.json.ArtifactJsonParser.nextInt;
+import static inflectra.idea.core.json.ArtifactJsonParser.nextString;
+
+/**
+ * Reads and writes a {@link SpiraTeamArtifactType}
+ * <p>The ID is named after the kind of artifact, ex RequirementTypeId, so any of them are accepted</p>
+ * @author Peter Geertsema
+ */
+class SpiraTeamArtifactTypeAdapter extends TypeAdapter<SpiraTeamArtifactType> {
+
+  @Override
+  public void write(JsonWriter out, SpiraTeamArtifactType type) throws IOException {
+    if(type == null) {
+      out.nullValue();
+      return;
+    }
+    out.beginObject();
+    //the kind of artifact is not stored, so use the most general name
+    out.name("TypeId").value(type.getTypeId());
+    out.name("Name").value(type.getName());
+    out.endObject();
+  }
+
+  @Override
+  public SpiraTeamArtifactType read(JsonReader in) throws IOException {
+    int typeId = -1;
+    String name = null;
+
+    in.beginObject();
+    while(in.hasNext()) {
+      switch(in.nextName()) {
+        case "RequirementTypeId":
+        case "TaskTypeId":
+        case "IncidentTypeId":
+        case "TypeId":
+          typeId = nextInt(in);
+          break;
+        case "Name":
+          name = nextString(in);
+          break;
+        default:
+          in.skipValue();
+      }
+    }
+    in.endObject();
+    return new SpiraTeamArtifactType(typeId, name);
+  }
+}
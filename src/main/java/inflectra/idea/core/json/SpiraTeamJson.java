@@ -0,0 +1,46 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inflectra.idea.core.json;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import inflectra.idea.core.model.*;
+import inflectra.idea.core.model.artifacts.Artifact;
+
+/**
+ * Holds the single {@link Gson} instance used to read and write SpiraTeam JSON
+ * <p>Gson is thread-safe, so the same instance is shared by every request instead of creating one per call.
+ * Every model class has its own TypeAdapter, so IDs are read as ints without any intermediate maps</p>
+ * @author Peter Geertsema
+ */
+public class SpiraTeamJson {
+  private static final Gson gson = new GsonBuilder()
+    .registerTypeAdapter(SpiraTeamUser.class, new SpiraTeamUserAdapter())
+    .registerTypeAdapter(SpiraTeamProject.class, new SpiraTeamProjectAdapter())
+    .registerTypeAdapter(SpiraTeamProjectRole.class, new SpiraTeamProjectRoleAdapter())
+    .registerTypeAdapter(SpiraTeamPriority.class, new SpiraTeamPriorityAdapter())
+    .registerTypeAdapter(SpiraTeamArtifactType.class, new SpiraTeamArtifactTypeAdapter())
+    //covers Requirement, Task and Incident as well
+    .registerTypeHierarchyAdapter(Artifact.class, new ArtifactAdapter())
+    .create();
+
+  /**
+   * @return The shared Gson instance
+   */
+  public static Gson getGson() {
+    return gson;
+  }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inflectra.idea.core.json;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import inflectra.idea.core.model.SpiraTeamPriority;
+
+import java.io.IOException;
+
+import static inflectra.idea.core.json.ArtifactJsonParser.nextInt;
+import static inflectra.idea.core.json.ArtifactJsonParser.nextString;
+
+/**
+ * Reads and writes a {@link SpiraTeamPriority}
+ * @author Peter Geertsema
+ */
+class SpiraTeamPriorityAdapter extends TypeAdapter<SpiraTeamPriority> {
+
+  @Override
+  public void write(JsonWriter out, SpiraTeamPriority priority) throws IOException {
+    if(priority == null) {
+      out.nullValue();
+      return;
+    }
+    out.beginObject();
+    out.name("PriorityId").value(priority.getPriorityId());
+    out.name("Name").value(priority.getPriorityName());
+    out.endObject();
+  }
+
+  @Override
+  public SpiraTeamPriority read(JsonReader in) throws IOException {
+    int priorityId = -1;
+    String name = null;
+
+    in.beginObject();
+    while(in.hasNext()) {
+      switch(in.nextName()) {
+        case "PriorityId":
+          priorityId = nextInt(in);
+          break;
+        case "Name":
+          name = nextString(in);
+          break;
+        default:
+          in.skipValue();
+      }
+    }
+    in.endObject();
+    return new SpiraTeamPriority(priorityId, name);
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inflectra.idea.core.json;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import inflectra.idea.core.model.SpiraTeamProjectRole;
+
+import java.io.IOException;
+
+import static inflectra.idea.core.json.ArtifactJsonParser.nextInt;
+
+/**
+ * Reads and writes a {@link SpiraTeamProjectRole}
+ * <p>Only the permissions which allow creating requirements, incidents or tasks are kept</p>
+ * @author Peter Geertsema
+ */
+class SpiraTeamProjectRoleAdapter extends TypeAdapter<SpiraTeamProjectRole> {
+  /**
+   * The ID of the permission which allows creating an artifact
+   */
+  private static final int CREATE_PERMISSION = 1;
+
+  @Override
+  public void write(JsonWriter out, SpiraTeamProjectRole role) throws IOException {
+    if(role == null) {
+      out.nullValue();
+      return;
+    }
+    out.beginObject();
+    out.name("ProjectRoleId").value(role.getRoleId());
+    out.name("Permissions").beginArray();
+    if(role.canCreateRequirement())
+      writePermission(out, role.getRoleId(), 1);
+    if(role.canCreateIncident())
+      writePermission(out, role.getRoleId(), 3);
+    if(role.canCreateTask())
+      writePermission(out, role.getRoleId(), 6);
+    out.endArray();
+    out.endObject();
+  }
+
+  private static void writePermission(JsonWriter out, int roleId, int artifactTypeId) throws IOException {
+    out.beginObject();
+    out.name("ProjectRoleId").value(roleId);
+    out.name("ArtifactTypeId").value(artifactTypeId);
+    out.name("PermissionId").value(CREATE_PERMISSION);
+    out.endObject();
+  }
+
+  @Override
+  public SpiraTeamProjectRole read(JsonReader in) throws IOException {
+    SpiraTeamProjectRole role = new SpiraTeamProjectRole();
+    //used to tell if the role has had its id set
+    boolean hasGottenRoleId = false;
+
+    in.beginObject();
+    while(in.hasNext()) {
+      switch(in.nextName()) {
+        case "ProjectRoleId":
+          role.setRoleId(nextInt(in));
+          hasGottenRoleId = true;
+          break;
+        case "Permissions":
+          in.beginArray();
+          while(in.hasNext()) {
+            hasGottenRoleId = readPermission(in, role, hasGottenRoleId);
+          }
+          in.endArray();
+          break;
+        default:
+          in.skipValue();
+      }
+    }
+    in.endObject();
+    return role;
+  }
+
+  /**
+   * Reads a single permission into the role
+   * @return True if the role ID has been set
+   */
+  private static boolean readPermission(JsonReader in, SpiraTeamProjectRole role, boolean hasGottenRoleId) throws IOException {
+    int artifactTypeId = -1;
+    int permissionId = -1;
+
+    in.beginObject();
+    while(in.hasNext()) {
+      switch(in.nextName()) {
+        case "ArtifactTypeId":
+          artifactTypeId = nextInt(in);
+          break;
+        case "PermissionId":
+          permissionId = nextInt(in);
+          break;
+        case "ProjectRoleId":
+          int roleId = nextInt(in);
+          //every permission has the ID of the role, only set it if the role does not have one yet
+          if(!hasGottenRoleId) {
+            role.setRoleId(roleId);
+            hasGottenRoleId = true;
+          }
+          break;
+        default:
+          in.skipValue();
+      }
+    }
+    in.endObject();
+
+    //only the create permission is needed
+    if(permissionId == CREATE_PERMISSION) {
+      //it is a requirement
+      if(artifactTypeId == 1)
+        role.setCanCreateRequirement(true);
+      //it is an incident
+      else if(artifactTypeId == 3)
+        role.setCanCreateIncident(true);
+      //it is a task
+      else if(artifactTypeId == 6)
+        role.setCanCreateTask(true);
+    }
+    return hasGottenRoleId;
+  }
+}
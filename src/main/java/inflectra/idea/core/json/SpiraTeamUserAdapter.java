@@ -0,0 +1,78 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inflectra.idea.core.json;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import inflectra.idea.core.model.SpiraTeamUser;
+
+import java.io.IOException;
+
+import static inflectra.idea.core.json.ArtifactJsonParser.nextInt;
+import static inflectra.idea.core.json.ArtifactJsonParser.nextString;
+
+/**
+ * Reads and writes a {@link SpiraTeamUser}
+ * <p>The role is only sent when the user was retrieved through a project, it is -1 otherwise</p>
+ * @author Peter Geertsema
+ */
+class SpiraTeamUserAdapter extends TypeAdapter<SpiraTeamUser> {
+
+  @Override
+  public void write(JsonWriter out, SpiraTeamUser user) throws IOException {
+    if(user == null) {
+      out.nullValue();
+      return;
+    }
+    out.beginObject();
+    out.name("FullName").value(user.getFullName());
+    out.name("UserId").value(user.getUserId());
+    out.name("UserName").value(user.getUsername());
+    out.name("ProjectRoleId").value(user.getRoleId());
+    out.endObject();
+  }
+
+  @Override
+  public SpiraTeamUser read(JsonReader in) throws IOException {
+    String fullName = null;
+    int userId = -1;
+    String username = null;
+    int roleId = -1;
+
+    in.beginObject();
+    while(in.hasNext()) {
+      switch(in.nextName()) {
+        case "FullName":
+          fullName = nextString(in);
+          break;
+        case "UserId":
+          userId = nextInt(in);
+          break;
+        case "UserName":
+          username = nextString(in);
+          break;
+        case "ProjectRoleId":
+          roleId = nextInt(in);
+          break;
+        default:
+          in.skipValue();
+      }
+    }
+    in.endObject();
+    return new SpiraTeamUser(fullName, userId, username, roleId);
+  }
+}
@@ -15,6 +15,8 @@
  */
 package inflectra.idea.core.model.artifacts;
 
+import java.util.Objects;
+
 /**
  * Class which contains information common to all Artifact types.
  * <p>It is inherited by the Incident, Requirement and Task classes</p>
@@ -42,6 +44,14 @@ public abstract class Artifact {
    * The type, ex change request, bug, feature, etc
    */
   private String type;
+  /**
+   * When the artifact was last changed on the server, in milliseconds since the epoch. 0 if unknown
+   */
+  private long lastUpdateDate;
+  /**
+   * The ID of the user the artifact is assigned to, 0 if unknown or unassigned
+   */
+  private int ownerId;
 
   public Artifact(int projectId, String projectName, int artifactId, ArtifactType artifactType, String name, String priorityName) {
     this.projectId = projectId;
@@ -77,6 +87,31 @@ public abstract class Artifact {
     this.status = status;
   }
 
+  /**
+   * @return When the artifact was last changed on the server, in milliseconds since the epoch. 0 if unknown
+   */
+  public long getLastUpdateDate() {
+    return lastUpdateDate;
+  }
+
+  /**
+   * @param lastUpdateDate When the artifact was last changed on the server, in milliseconds since the epoch
+   */
+  public void setLastUpdateDate(long lastUpdateDate) {
+    this.lastUpdateDate = lastUpdateDate;
+  }
+
+  /**
+   * @return The ID of the user the artifact is assigned to, 0 if unknown or unassigned
+   */
+  public int getOwnerId() {
+    return ownerId;
+  }
+
+  public void setOwnerId(int ownerId) {
+    this.ownerId = ownerId;
+  }
+
   /**
    * @return The id of the project
    */
@@ -154,6 +189,13 @@ public abstract class Artifact {
     return artifactType == ArtifactType.TASK;
   }
 
+  /**
+   * @return A hash of every property which is shown to the user, changes whenever the artifact does
+   */
+  public int getContentHash() {
+    return Objects.hash(name, projectName, description, status, priorityName, type, lastUpdateDate);
+  }
+
   @Override
   public boolean equals(Object other) {
     //not equal of other is not an Artifact
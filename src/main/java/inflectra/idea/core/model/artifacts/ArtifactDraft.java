@@ -0,0 +1,91 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inflectra.idea.core.model.artifacts;
+
+/**
+ * An artifact which has not been created yet, holding everything needed to create it
+ * @author Peter Geertsema
+ */
+public class ArtifactDraft {
+  private ArtifactType type;
+  private int projectId;
+  private String name;
+  private String description;
+  /**
+   * The requirement, task or incident type, ex Bug, -1 if none was chosen
+   */
+  private int typeId = -1;
+  /**
+   * -1 if the artifact is not assigned to anyone
+   */
+  private int ownerId = -1;
+  /**
+   * The importance of requirements, or the priority of tasks and incidents. -1 if none was chosen
+   */
+  private int priorityId = -1;
+
+  public ArtifactDraft(ArtifactType type, int projectId, String name, String description) {
+    this.type = type;
+    this.projectId = projectId;
+    this.name = name;
+    this.description = description;
+  }
+
+  public ArtifactType getType() {
+    return type;
+  }
+
+  public int getProjectId() {
+    return projectId;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public String getDescription() {
+    return description;
+  }
+
+  public int getTypeId() {
+    return typeId;
+  }
+
+  public void setTypeId(int typeId) {
+    this.typeId = typeId;
+  }
+
+  public int getOwnerId() {
+    return ownerId;
+  }
+
+  public void setOwnerId(int ownerId) {
+    this.ownerId = ownerId;
+  }
+
+  public int getPriorityId() {
+    return priorityId;
+  }
+
+  public void setPriorityId(int priorityId) {
+    this.priorityId = priorityId;
+  }
+
+  @Override
+  public String toString() {
+    return type + " \"" + name + "\" in project " + projectId;
+  }
+}
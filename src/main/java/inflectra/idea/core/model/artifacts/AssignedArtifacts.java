@@ -0,0 +1,74 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inflectra.idea.core.model.artifacts;
+
+import inflectra.idea.core.cache.ArtifactDelta;
+
+import java.util.List;
+
+/**
+ * Every artifact assigned to the current user, as returned by a single refresh
+ * @author Peter Geertsema
+ */
+public class AssignedArtifacts {
+  private List<Artifact> requirements;
+  private List<Artifact> tasks;
+  private List<Artifact> incidents;
+  /**
+   * What changed since the previous refresh, null if unknown
+   */
+  private ArtifactDelta changes;
+
+  public AssignedArtifacts(List<Artifact> requirements, List<Artifact> tasks, List<Artifact> incidents) {
+    this(requirements, tasks, incidents, null);
+  }
+
+  public AssignedArtifacts(List<Artifact> requirements, List<Artifact> tasks, List<Artifact> incidents,
+                           ArtifactDelta changes) {
+    this.requirements = requirements;
+    this.tasks = tasks;
+    this.incidents = incidents;
+    this.changes = changes;
+  }
+
+  /**
+   * @return The requirements assigned to the user
+   */
+  public List<Artifact> getRequirements() {
+    return requirements;
+  }
+
+  /**
+   * @return The tasks assigned to the user
+   */
+  public List<Artifact> getTasks() {
+    return tasks;
+  }
+
+  /**
+   * @return The incidents assigned to the user
+   */
+  public List<Artifact> getIncidents() {
+    return incidents;
+  }
+
+  /**
+   * @return What changed since the previous refresh, null if unknown
+   */
+  public ArtifactDelta getChanges() {
+    return changes;
+  }
+}
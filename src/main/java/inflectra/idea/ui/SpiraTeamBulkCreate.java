@@ -0,0 +1,36 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inflectra.idea.ui;
+
+import com.intellij.openapi.application.ApplicationManager;
+import inflectra.idea.core.SpiraTeamCredentials;
+import inflectra.idea.ui.dialogs.SpiraTeamBulkCreateDialog;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+
+/**
+ * Action which, when clicked, opens a dialog to create many artifacts at once
+ * @author Peter Geertsema
+ */
+public class SpiraTeamBulkCreate extends AnAction {
+
+  @Override
+  public void actionPerformed(AnActionEvent e) {
+    SpiraTeamBulkCreateDialog bulkCreate = new SpiraTeamBulkCreateDialog(e.getProject(),
+            ApplicationManager.getApplication().getComponent(SpiraTeamCredentials.class));
+    bulkCreate.show();
+  }
+}
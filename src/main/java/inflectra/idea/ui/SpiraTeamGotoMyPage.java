@@ -34,9 +34,12 @@ public class SpiraTeamGotoMyPage extends AnAction {
   public void actionPerformed(AnActionEvent e) {
     //get the authentication credentials from the IDE
     SpiraTeamCredentials credentials = ApplicationManager.getApplication().getComponent(SpiraTeamCredentials.class);
-    //create the MyPage URL
-    URI myPage = SpiraTeamUtil.getMyPageURL(credentials);
-    //open the URL
-    SpiraTeamUtil.openURL(myPage);
+    ApplicationManager.getApplication().executeOnPooledThread(() -> {
+      //create the MyPage URL, which may need a request the first time
+      URI myPage = SpiraTeamUtil.getMyPageURL(credentials);
+      //open the URL
+      if(myPage != null)
+        SpiraTeamUtil.openURL(myPage);
+    });
   }
 }
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inflectra.idea.ui;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.wm.ToolWindow;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import inflectra.idea.core.SpiraTeamCredentials;
+import inflectra.idea.core.model.artifacts.AssignedArtifacts;
+
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Refreshes the SpiraTeam window in the background on the interval chosen by the user
+ * <p>The interval is stretched while nothing changes or the IDE is not in the foreground, backs off exponentially
+ * while the server is failing, and polling pauses while the tool window is hidden. Every delay is jittered so
+ * many IDEs do not hit the server on the same beat</p>
+ * <p>Register it with the project, so it stops as soon as the project is closed</p>
+ * @author Peter Geertsema
+ */
+public class SpiraTeamRefreshScheduler implements Disposable {
+  /**
+   * How many times longer than the chosen interval the wait can grow while nothing changes
+   */
+  public static final int MAX_STRETCH = 8;
+  /**
+   * The longest wait between attempts while the server is failing
+   */
+  public static final long MAX_BACKOFF = TimeUnit.HOURS.toMillis(1);
+  /**
+   * How far each delay can be moved either way, as a fraction of the delay
+   */
+  private static final double JITTER = 0.1;
+  /**
+   * How often to check whether auto-refresh has been turned back on, or the window shown again
+   */
+  private static final long IDLE_CHECK = TimeUnit.MINUTES.toMillis(1);
+
+  private final Project project;
+  private final ToolWindow window;
+  private final SpiraToolWindowFactory factory;
+  private final Random random = new Random();
+  /**
+   * The current wait between refreshes, in milliseconds
+   */
+  private long interval;
+  /**
+   * How many refreshes in a row have failed
+   */
+  private int failures;
+  private ScheduledFuture<?> next;
+  private boolean stopped;
+
+  public SpiraTeamRefreshScheduler(Project project, ToolWindow window, SpiraToolWindowFactory factory) {
+    this.project = project;
+    this.window = window;
+    this.factory = factory;
+  }
+
+  /**
+   * Schedules the first refresh
+   */
+  public synchronized void start() {
+    stopped = false;
+    interval = getBaseInterval();
+    schedule(interval > 0 ? interval : IDLE_CHECK);
+  }
+
+  /**
+   * Stops refreshing, the refresh which is already running is allowed to finish
+   */
+  public synchronized void stop() {
+    stopped = true;
+    if(next != null)
+      next.cancel(false);
+  }
+
+  @Override
+  public void dispose() {
+    stop();
+  }
+
+  private synchronized boolean isStopped() {
+    return stopped;
+  }
+
+  /**
+   * @return The interval chosen by the user in milliseconds, 0 if auto-refresh is turned off
+   */
+  private static long getBaseInterval() {
+    SpiraTeamCredentials credentials = ApplicationManager.getApplication().getComponent(SpiraTeamCredentials.class);
+    if(credentials == null)
+      return 0;
+    return TimeUnit.MINUTES.toMillis(credentials.getAutoRefreshMinutes());
+  }
+
+  private synchronized void schedule(long delay) {
+    if(stopped)
+      return;
+    //spread the refreshes of many IDEs out, so they don't all reach the server at the same moment
+    long jittered = delay + (long)(delay * JITTER * (random.nextDouble() * 2 - 1));
+    next = AppExecutorUtil.getAppScheduledExecutorService().schedule(this::tick, jittered, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Decides whether to refresh now, the window is only touched on the Event Dispatch Thread
+   */
+  private void tick() {
+    ApplicationManager.getApplication().invokeLater(() -> {
+      //disposed while the tick was waiting for the Event Dispatch Thread
+      if(isStopped())
+        return;
+      long base = getBaseInterval();
+      //turned off, but it may be turned back on
+      if(base <= 0) {
+        schedule(IDLE_CHECK);
+        return;
+      }
+      //nobody can see the results, so wait until the window is shown again
+      if(!window.isVisible()) {
+        schedule(Math.min(base, IDLE_CHECK));
+        return;
+      }
+      //the user is working in another application, so the artifacts are not needed as often
+      if(!ApplicationManager.getApplication().isActive()) {
+        synchronized(this) {
+          stretch(base);
+          schedule(interval);
+        }
+        return;
+      }
+      CompletableFuture<AssignedArtifacts> refresh = factory.refreshInBackground(project);
+      //the user is not logged in, check again later
+      if(refresh == null) {
+        schedule(base);
+        return;
+      }
+      refresh.whenComplete((artifacts, error) -> onRefreshed(base, artifacts, error));
+    });
+  }
+
+  /**
+   * Works out when to refresh next based on how the last refresh went
+   */
+  private synchronized void onRefreshed(long base, AssignedArtifacts artifacts, Throwable error) {
+    if(error != null) {
+      failures++;
+      //double the wait every time, so a struggling server is not kept busy
+      interval = Math.min(base << Math.min(failures, 16), Math.max(MAX_BACKOFF, base));
+    }
+    else {
+      //the server has recovered, so start again from the chosen interval
+      if(failures > 0)
+        interval = base;
+      failures = 0;
+      //nothing has changed, so it is likely nothing will change soon either
+      if(artifacts.getChanges() != null && artifacts.getChanges().isEmpty())
+        stretch(base);
+      else
+        interval = base;
+    }
+    schedule(interval);
+  }
+
+  /**
+   * Makes the wait half as long again, up to {@link #MAX_STRETCH} times the chosen interval
+   */
+  private void stretch(long base) {
+    interval = Math.min(Math.max(interval, base) * 3 / 2, base * MAX_STRETCH);
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inflectra.idea.ui;
+
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import inflectra.idea.core.SpiraTeamRefreshPipeline;
+import inflectra.idea.core.SpiraTeamUtil;
+import inflectra.idea.core.http.SpiraTeamEndpoint;
+import inflectra.idea.core.model.artifacts.AssignedArtifacts;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Shows the progress of a refresh in the status bar, and lets the user cancel it
+ * <p>The refresh itself runs on pooled threads, this task only waits on it. Cancelling the task cancels the
+ * refresh, which aborts its HTTP requests and leaves the artifacts already on screen</p>
+ * @author Peter Geertsema
+ */
+public class SpiraTeamRefreshTask extends Task.Backgroundable implements SpiraTeamRefreshPipeline.Listener {
+  /**
+   * How often the progress is updated and the cancel button checked
+   */
+  private static final long POLL_MILLIS = 100;
+  /**
+   * The endpoints a refresh reads, in the order they are shown
+   */
+  private static final SpiraTeamEndpoint[] ENDPOINTS = {SpiraTeamEndpoint.ASSIGNED_REQUIREMENTS,
+    SpiraTeamEndpoint.ASSIGNED_TASKS, SpiraTeamEndpoint.ASSIGNED_INCIDENTS};
+
+  /**
+   * How many artifacts have been read from each endpoint so far
+   */
+  private final Map<SpiraTeamEndpoint, Integer> counts = new ConcurrentHashMap<>();
+  /**
+   * The endpoints which have been read in full
+   */
+  private final Set<SpiraTeamEndpoint> finished = ConcurrentHashMap.newKeySet();
+  private volatile CompletableFuture<?> refresh;
+
+  public SpiraTeamRefreshTask(Project project) {
+    super(project, "Refreshing SpiraTeam", true);
+  }
+
+  /**
+   * @param refresh The refresh to wait on, must be set before the task is queued
+   */
+  public void setRefresh(CompletableFuture<?> refresh) {
+    this.refresh = refresh;
+  }
+
+  @Override
+  public void previewRead(SpiraTeamEndpoint endpoint, AssignedArtifacts soFar) {
+    //only the preview of the endpoint has been read, the others may already be done
+    if(!finished.contains(endpoint))
+      counts.put(endpoint, SpiraTeamUtil.PREVIEW_SIZE);
+  }
+
+  @Override
+  public void endpointFinished(SpiraTeamEndpoint endpoint, int count) {
+    counts.put(endpoint, count);
+    finished.add(endpoint);
+  }
+
+  @Override
+  public void run(ProgressIndicator indicator) {
+    indicator.setIndeterminate(false);
+    indicator.setText("Refreshing SpiraTeam artifacts");
+    while(!refresh.isDone()) {
+      if(indicator.isCanceled()) {
+        refresh.cancel(true);
+        return;
+      }
+      indicator.setFraction((double)finished.size() / ENDPOINTS.length);
+      indicator.setText2(describeProgress());
+      try {
+        refresh.get(POLL_MILLIS, TimeUnit.MILLISECONDS);
+      }
+      catch(TimeoutException e) {
+        //still running, check for cancellation again
+      }
+      catch(InterruptedException e) {
+        refresh.cancel(true);
+        Thread.currentThread().interrupt();
+        return;
+      }
+      catch(ExecutionException | CancellationException e) {
+        //the window deals with a failed refresh
+        return;
+      }
+    }
+  }
+
+  /**
+   * @return How far along each endpoint is, ex "Assigned requirements: done (12), Assigned tasks: 100..."
+   */
+  private String describeProgress() {
+    StringBuilder out = new StringBuilder();
+    for(SpiraTeamEndpoint endpoint: ENDPOINTS) {
+      if(out.length() > 0)
+        out.append(", ");
+      out.append(endpoint.getDisplayName()).append(": ");
+      int count = counts.getOrDefault(endpoint, 0);
+      if(finished.contains(endpoint))
+        out.append("done (").append(count).append(")");
+      else
+        out.append(count).append("...");
+    }
+    return out.toString();
+  }
+}
@@ -15,37 +15,55 @@
  */
 package inflectra.idea.ui;
 
-import com.google.gson.Gson;
-import com.google.gson.internal.LinkedTreeMap;
-import com.google.gson.stream.JsonReader;
 import com.intellij.openapi.application.ApplicationManager;
 import inflectra.idea.core.SpiraTeamCredentials;
+import inflectra.idea.core.SpiraTeamRefreshPipeline;
+import inflectra.idea.core.SpiraTeamSession;
 import inflectra.idea.core.SpiraTeamUtil;
+import inflectra.idea.core.cache.ArtifactDetailsLoader;
+import inflectra.idea.core.cache.ArtifactSnapshot;
+import inflectra.idea.core.cache.ArtifactSnapshotStore;
+import inflectra.idea.core.cache.ProjectMetadataService;
+import inflectra.idea.core.http.SpiraTeamEndpoint;
+import inflectra.idea.core.http.SpiraTeamHttpException;
 import inflectra.idea.core.listeners.*;
 import inflectra.idea.core.model.artifacts.*;
 import inflectra.idea.ui.dialogs.SpiraTeamLoginDialog;
 import inflectra.idea.ui.dialogs.SpiraTeamNewArtifactDialog;
+import inflectra.idea.ui.panels.ArtifactDetailsCache;
+import inflectra.idea.ui.panels.DiagnosticsPanel;
+import inflectra.idea.ui.tree.ArtifactTreeCellRenderer;
+import inflectra.idea.ui.tree.ArtifactTreeModel;
 import com.intellij.openapi.components.ServiceManager;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Disposer;
 import com.intellij.openapi.wm.ToolWindow;
 import com.intellij.openapi.wm.ToolWindowFactory;
 import com.intellij.ui.JBSplitter;
 import com.intellij.ui.components.JBLabel;
 import com.intellij.ui.components.JBPanel;
 import com.intellij.ui.components.JBScrollPane;
+import com.intellij.ui.treeStructure.Tree;
 import com.intellij.util.ui.UIUtil;
 import org.apache.commons.lang.exception.ExceptionUtils;
 import org.jetbrains.annotations.NotNull;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
+import javax.swing.tree.TreePath;
+import javax.swing.tree.TreeSelectionModel;
 import java.awt.*;
-import java.io.*;
+import java.io.IOException;
+import java.net.MalformedURLException;
 import java.net.URI;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Future;
 
 /**
  * Is the 'core' of the plug-in's UI, this is the class from which the SpiraToolWindow originates from
@@ -60,10 +78,6 @@ public class SpiraToolWindowFactory implements ToolWindowFactory {
    * Contains information about the currently selected artifact
    */
   private JBPanel bottomPanel;
-  /**
-   * The artifact label that has been selected in the top
-   */
-  private JBLabel selectedLabel;
   /**
    * Click on button to refresh the window
    */
@@ -72,15 +86,27 @@ public class SpiraToolWindowFactory implements ToolWindowFactory {
    * Panel with information on the signed in user and a refresh button
    */
   private JBPanel topInformationPanel;
-  //panel for each requirement type
-  private JBPanel requirements;
-  private JBPanel tasks;
-  private JBPanel incidents;
-
-  //labels which form the 'tree'
-  private JBLabel requirementsLabel;
-  private JBLabel incidentsLabel;
-  private JBLabel tasksLabel;
+  /**
+   * Shows every assigned artifact, grouped by type
+   */
+  private Tree artifactTree;
+  private ArtifactTreeModel artifactTreeModel;
+  /**
+   * The artifact currently shown in the bottom panel, null if there is none
+   */
+  private Artifact shownArtifact;
+  /**
+   * The details of the most recently selected artifacts
+   */
+  private ArtifactDetailsCache detailsCache = new ArtifactDetailsCache();
+  /**
+   * Fetches the full artifact, including its description, when it is selected
+   */
+  private ArtifactDetailsLoader detailsLoader = new ArtifactDetailsLoader();
+  /**
+   * The fetch for the artifact in the bottom panel, null if there is none
+   */
+  private Future<?> pendingDetails;
   /**
    * Contains the last time the window was refreshed
    */
@@ -95,6 +121,14 @@ public class SpiraToolWindowFactory implements ToolWindowFactory {
   private DateFormat dateFormat;
 
   private JBPanel invalidInformationPanel;
+  /**
+   * Refreshes the window in the background, null until the window has been created
+   */
+  private SpiraTeamRefreshScheduler scheduler;
+  /**
+   * Incremented every time a refresh is started, so that only the newest one updates the window
+   */
+  private int refreshGeneration;
   /**
    * The current instance of SpiraToolWindowFactory
    */
@@ -125,38 +159,176 @@ public class SpiraToolWindowFactory implements ToolWindowFactory {
     SpiraTeamCredentials credentials = ApplicationManager.getApplication().getComponent(SpiraTeamCredentials.class);
     //show the username of the authenticated user
     instance.showTopInformation(project, credentials);
-    //need to remake the date
-    instance.date = new Date();
-    instance.dateRefreshed.setText("Last refreshed: " + instance.dateFormat.format(instance.date));
     instance.refresh.setText("Refreshing...");
 
     //must update the changes
     instance.topInformationPanel.updateUI();
-    //clearing the bottom panel, and updating it if the artifact is no longer assigned to the user
-    instance.bottomPanel.removeAll();
     //these are required because of how swing works
-    instance.bottomPanel.updateUI();
     instance.refresh.updateUI();
 
-    //refresh the options
-    SwingUtilities.invokeLater(new Runnable() {
+    instance.refreshWithProgress(project, credentials, true);
+  }
+
+  /**
+   * Shows an artifact the user has just created straight away, without downloading every assigned artifact again.
+   * The create response can leave some fields out, so the artifact is then fetched in the background and the
+   * full version swapped in. Until then it has no last-update date, so a refresh replaces it as well. Must be
+   * called on the Event Dispatch Thread
+   * @param artifact The artifact as returned by the server when it was created, which is assigned to the user
+   * @return False if the window is not showing any artifacts yet, in which case it should be reloaded instead
+   */
+  public static boolean addCreatedArtifact(Artifact artifact) {
+    if(instance == null || instance.artifactTree == null)
+      return false;
+    SpiraTeamCredentials credentials = ApplicationManager.getApplication().getComponent(SpiraTeamCredentials.class);
+    //without a date the next refresh always replaces it, rather than keeping it as unchanged
+    artifact.setLastUpdateDate(0);
+    instance.showArtifacts(SpiraTeamRefreshPipeline.addArtifact(credentials, artifact), credentials);
+    //correct whatever the create response left out
+    ApplicationManager.getApplication().executeOnPooledThread(() -> {
+      try {
+        Artifact full = SpiraTeamUtil.getArtifactDetails(credentials, artifact);
+        if(full == null)
+          return;
+        //applied even if a refresh has started since, as that refresh may have been sent before the fetch
+        ApplicationManager.getApplication().invokeLater(() -> {
+          AssignedArtifacts assigned = SpiraTeamRefreshPipeline.addArtifact(credentials, full);
+          if(instance != null && instance.artifactTree != null)
+            instance.showArtifacts(assigned, credentials);
+        });
+      }
+      catch(IOException e) {
+        //the artifact from the create response stays on screen until the next refresh
+        e.printStackTrace();
+      }
+    });
+    return true;
+  }
+
+  /**
+   * Refreshes the artifacts as a background task, which shows its progress and can be cancelled by the user
+   * @param notify Whether to tell the user once the refresh succeeded
+   */
+  private void refreshWithProgress(Project project, SpiraTeamCredentials credentials, boolean notify) {
+    SpiraTeamRefreshTask task = new SpiraTeamRefreshTask(project);
+    task.setRefresh(revalidate(project, credentials, notify, true, task));
+    task.queue();
+  }
+
+  /**
+   * Refreshes the artifacts without clearing anything first, used by the {@link SpiraTeamRefreshScheduler}.
+   * Must be called on the Event Dispatch Thread
+   * @return Completes with the artifacts once they have been retrieved, or exceptionally if the refresh failed,
+   * in which case whatever was on screen is left there. Null if there is nothing to refresh
+   */
+  CompletableFuture<AssignedArtifacts> refreshInBackground(Project project) {
+    SpiraTeamCredentials credentials = ApplicationManager.getApplication().getComponent(SpiraTeamCredentials.class);
+    //nothing is shown if the user has not logged in or their credentials were rejected
+    if(credentials == null || artifactTree == null)
+      return null;
+    return revalidate(project, credentials, false, false, null);
+  }
+
+  /**
+   * Fetches the assigned artifacts in the background and swaps them in once they arrive.
+   * Whatever is currently shown stays on screen until then
+   * @param notify Whether to tell the user once the refresh succeeded
+   * @param showErrors Whether a failed refresh replaces the window with the invalid credentials screen
+   * @param progress Told how the refresh is going. May be null
+   * @return Completes with the artifacts once they have been retrieved, or exceptionally if the refresh failed.
+   * Cancelling it aborts the requests and leaves whatever is on screen
+   */
+  private CompletableFuture<AssignedArtifacts> revalidate(Project project, SpiraTeamCredentials credentials,
+                                                          boolean notify, boolean showErrors,
+                                                          SpiraTeamRefreshPipeline.Listener progress) {
+    //only the newest refresh is allowed to update the window
+    int generation = ++refreshGeneration;
+    //with nothing on screen yet, show the first artifacts of each list as soon as they have been read
+    //instead of waiting for everything. Once the tree is shown, only the full lists are merged into it
+    boolean showPreviews = artifactTree == null;
+    SpiraTeamRefreshPipeline.Listener listener = new SpiraTeamRefreshPipeline.Listener() {
       @Override
-      public void run() {
-        try {
-          instance.addRequirements(credentials);
-          //add tasks to the top panel
-          instance.addTasks(credentials);
-          //add incidents to the top panel
-          instance.addIncidents(credentials);
-
-          instance.refresh.setText("Refresh");
-          showNotification("Successfully refreshed!");
+      public void previewRead(SpiraTeamEndpoint endpoint, AssignedArtifacts soFar) {
+        if(progress != null)
+          progress.previewRead(endpoint, soFar);
+        if(showPreviews) {
+          ApplicationManager.getApplication().invokeLater(() -> {
+            if(generation == refreshGeneration)
+              showArtifacts(soFar, credentials);
+          });
         }
-        catch (IOException e) {
-          instance.showInvalidInformation(project);
+      }
+
+      @Override
+      public void endpointFinished(SpiraTeamEndpoint endpoint, int count) {
+        if(progress != null)
+          progress.endpointFinished(endpoint, count);
+      }
+    };
+    //download and parse everything in the background, then show it all in a single pass on the EDT
+    CompletableFuture<AssignedArtifacts> fetched = SpiraTeamRefreshPipeline.fetchAssignedArtifacts(credentials, listener);
+    CompletableFuture<ArtifactSnapshot> refreshed = fetched
+      .thenApply(artifacts -> {
+        ArtifactSnapshot snapshot = new ArtifactSnapshot(artifacts, new Date());
+        //remember the artifacts so the window can show them straight away next time
+        ArtifactSnapshotStore.save(credentials, snapshot);
+        return snapshot;
+      });
+    refreshed.whenComplete((snapshot, error) -> ApplicationManager.getApplication().invokeLater(() -> {
+      //a newer refresh has been started, so leave the window to that one
+      if(generation != refreshGeneration)
+        return;
+      if(error != null) {
+        //the user cancelled the refresh, so keep what is already there
+        if(error instanceof CancellationException || error.getCause() instanceof CancellationException) {
+          refresh.setText("Refresh");
+          if(notify)
+            showNotification("Refresh cancelled");
         }
+        //only a rejected login is worth replacing the window for, otherwise keep what is already there
+        else if(showErrors && isCredentialsError(error))
+          showInvalidInformation(project);
+        else if(refresh != null) {
+          refresh.setText("Refresh");
+          if(showErrors && artifactTree != null)
+            showNotification("Could not refresh, showing the artifacts as of " + dateFormat.format(date));
+          else if(showErrors)
+            showNotification("Could not refresh, click Refresh to try again");
+        }
+        return;
       }
+      AssignedArtifacts artifacts = snapshot.getArtifacts();
+      //leave the panels alone if nothing has been assigned, changed or de-assigned
+      if(artifactTree == null || artifacts.getChanges() == null || !artifacts.getChanges().isEmpty())
+        showArtifacts(artifacts, credentials);
+      date = snapshot.getAsOf();
+      dateRefreshed.setText("Last refreshed: " + dateFormat.format(date));
+      refresh.setText("Refresh");
+      if(notify)
+        showNotification("Successfully refreshed!");
+    }));
+    CompletableFuture<AssignedArtifacts> out = refreshed.thenApply(ArtifactSnapshot::getArtifacts);
+    //cancelling the refresh aborts the requests
+    out.whenComplete((artifacts, error) -> {
+      if(out.isCancelled())
+        fetched.cancel(true);
     });
+    return out;
+  }
+
+  /**
+   * @param error Why a refresh failed
+   * @return True if the server rejected the credentials or the URL is invalid, false if the refresh could
+   * succeed later, such as when the server cannot be reached
+   */
+  private static boolean isCredentialsError(Throwable error) {
+    //the pipeline wraps the exception of the request which failed
+    while(error instanceof CompletionException && error.getCause() != null) {
+      error = error.getCause();
+    }
+    if(error instanceof SpiraTeamHttpException)
+      return ((SpiraTeamHttpException)error).isUnauthorized();
+    return error instanceof MalformedURLException;
   }
 
   /**
@@ -192,9 +364,11 @@ public class SpiraToolWindowFactory implements ToolWindowFactory {
     bottomPanel.removeAll();
     //reset all panels and buttons
     refresh = null;
-    requirements = null;
-    tasks = null;
-    incidents = null;
+    artifactTree = null;
+    artifactTreeModel = null;
+    shownArtifact = null;
+    detailsCache.clear();
+    detailsLoader.clear();
     topInformationPanel = null;
 
     invalidInformationPanel = new JBPanel();
@@ -221,79 +395,60 @@ public class SpiraToolWindowFactory implements ToolWindowFactory {
    * Show information in the bottom panel about the provided artifact
    * @param artifact The artifact to show information about
    * @param credentials The log-in credentials of the user
-   * @param label The label that was just selected
    */
-  public void showInformation(Artifact artifact, SpiraTeamCredentials credentials, JBLabel label) {
-    //only run if there was a previously selected artifact
-    if(selectedLabel != null) {
-      //change the color back to normal
-      Color color = UIUtil.getActiveTextColor();
-      selectedLabel.setForeground(color);
-    }
+  public void showInformation(Artifact artifact, SpiraTeamCredentials credentials) {
     //have the plug-in remember the last opened artifact
     credentials.setLastOpenArtifactId(artifact.getArtifactId());
     credentials.setLastOpenArtifactType(artifact.getArtifactType());
+    shownArtifact = artifact;
+    //stop waiting on the details of the previously selected artifact
+    if(pendingDetails != null) {
+      pendingDetails.cancel(true);
+      pendingDetails = null;
+    }
 
-    //set the currently selected label to be the new one and change the color
-    selectedLabel = label;
-    Color color = UIUtil.getListSelectionBackground();
-    selectedLabel.setForeground(color);
+    //the list only has a summary, so show the full artifact if it has been fetched before
+    Artifact details = detailsLoader.getCached(credentials, artifact);
+    showDetails(details != null ? details : artifact, credentials);
+    if(details == null) {
+      //show the summary straight away, and the full artifact once it arrives
+      pendingDetails = detailsLoader.load(credentials, artifact, loaded ->
+        ApplicationManager.getApplication().invokeLater(() -> {
+          //only show it if the user has not moved on
+          if(shownArtifact == artifact)
+            showDetails(loaded, credentials);
+        }));
+    }
+  }
 
+  /**
+   * Replaces the contents of the bottom panel with the given artifact
+   */
+  private void showDetails(Artifact artifact, SpiraTeamCredentials credentials) {
     //remove everything currently stored in the bottomPanel
     bottomPanel.removeAll();
-    //show the name of the artifact as the title of the bottom panel
-    JBLabel title = new JBLabel("<html><div><h2>" + artifact.getPrefix() + ":" + artifact.getArtifactId()
-                                + " - " + artifact.getName() + "</h2></div></html>");
-    //allow user to click title to take to SpiraTeam
-    title.addMouseListener(new HyperlinkListener(SpiraTeamUtil.getArtifactURI(artifact, credentials.getUrl()), title));
-    bottomPanel.add(title);
-    //label which will contain a table of all the values. Has no border
-    JBLabel table = new JBLabel("<html><style>th {padding-right: 20px; text-align: left;}</style><table border=\"0\">");
-
-    String type = artifact.getType();
-    //only show type if it is not null
-    if(type != null) {
-      addContentToTable(table, "Type", type);
-    }
-    String project = artifact.getProjectName();
-    if(project != null) {
-      addContentToTable(table, "Project", project);
-    }
-    String status = artifact.getStatus();
-    if(status != null) {
-      addContentToTable(table, "Status", status);
-    }
-    String priority = artifact.getPriorityName();
-    if(priority != null) {
-      addContentToTable(table, "Priority", priority);
-    }
-    //end the table
-    table.setText(table.getText() + "</table></html>");
-    bottomPanel.add(table);
-    //show description separately
-    String description = artifact.getDescription();
-    if(description != null) {
-      JBLabel descriptionLabel = new JBLabel("<html><strong>Description:</strong><br><div style=\"word-wrap: normal\">" + description + "</div></html>");
-      bottomPanel.add(descriptionLabel);
-    }
+    //reuse the panel built the last time this version of the artifact was selected
+    bottomPanel.add(detailsCache.get(artifact, credentials.getUrl()));
 
     //need to show the changes
     bottomPanel.updateUI();
   }
 
   /**
-   * Utility method used to add the given header and data to the table contained in the label
-   * @param table The table to add the content to
-   * @param header The name of the property to be shown
-   * @param data The data associated with the header
+   * Replaces the contents of the bottom panel with the timings of the requests sent to the server
    */
-  private static void addContentToTable(JBLabel table, String header, String data) {
-    String text = table.getText();
-    text+="<tr>";
-    text+="<th>" + header + "</th>";
-    text+="<td>" + data + "</td>";
-    text+="</tr>";
-    table.setText(text);
+  private void showDiagnostics() {
+    shownArtifact = null;
+    if(pendingDetails != null) {
+      pendingDetails.cancel(true);
+      pendingDetails = null;
+    }
+    //deselect the artifact, so selecting it again shows it
+    if(artifactTree != null)
+      artifactTree.clearSelection();
+    bottomPanel.removeAll();
+    bottomPanel.add(new DiagnosticsPanel());
+    bottomPanel.updateUI();
   }
 
   /**
@@ -331,12 +486,13 @@ public class SpiraToolWindowFactory implements ToolWindowFactory {
       JButton home = new JButton("Home");
       home.setAlignmentX(0);
       //open My Page in browser when clicked
-      home.addActionListener(l -> {
-        //create the MyPage URL
+      home.addActionListener(l -> ApplicationManager.getApplication().executeOnPooledThread(() -> {
+        //create the MyPage URL, which may need a request the first time
         URI myPage = SpiraTeamUtil.getMyPageURL(credentials);
         //open the URL
-        SpiraTeamUtil.openURL(myPage);
-      });
+        if(myPage != null)
+          SpiraTeamUtil.openURL(myPage);
+      }));
       //add the button to the panel
       buttonPanel.add(home);
 
@@ -347,6 +503,12 @@ public class SpiraToolWindowFactory implements ToolWindowFactory {
         artifact.show();
       });
       buttonPanel.add(newArtifact);
+
+      JButton diagnostics = new JButton("Diagnostics");
+      diagnostics.setAlignmentX(0);
+      //show how long each request is taking in the bottom panel
+      diagnostics.addActionListener(l -> showDiagnostics());
+      buttonPanel.add(diagnostics);
       topInformationPanel.add(buttonPanel);
 
       //panel which contains the signed-in user
@@ -394,12 +556,12 @@ public class SpiraToolWindowFactory implements ToolWindowFactory {
     try {
       if(credentials != null) {
         showTopInformation(project, credentials);
-        //add requirements to the top panel
-        addRequirements(credentials);
-        //add tasks to the top panel
-        addTasks(credentials);
-        //add incidents to the top panel
-        addIncidents(credentials);
+        refresh.setText("Refreshing...");
+        showSnapshotAndRefresh(project, credentials);
+        //resolve the user and roles once, to be shared by the rest of the plug-in
+        SpiraTeamSession.get(credentials);
+        //warm up the New Artifact dialog for the projects the user is likely to create artifacts in
+        ProjectMetadataService.prefetch(credentials, credentials.getRecentProjectIds());
       }
       else
         showInvalidInformation(project);
@@ -422,245 +584,107 @@ public class SpiraToolWindowFactory implements ToolWindowFactory {
     splitter.setSecondComponent(bottomScroll);
     //add the split-screen to the tool window
     window.getComponent().add(splitter);
+    //every window shares the panels of this factory, so only the newest one is refreshed
+    if(scheduler != null)
+      Disposer.dispose(scheduler);
+    //keep the artifacts up to date without the user having to click refresh
+    scheduler = new SpiraTeamRefreshScheduler(project, window, this);
+    //stop as soon as the project is closed, instead of holding on to it until the next tick
+    Disposer.register(project, scheduler);
+    scheduler.start();
   }
 
   /**
-   * Performs a REST call and adds all requirements to {@code topPanel}
-   */
-  private void addRequirements(SpiraTeamCredentials credentials) throws IOException {
-    if(requirements == null) {
-      //create a panel which will fit under the big requirementsLabel
-      requirements = new JBPanel();
-      requirements.setBorder(new EmptyBorder(0, 10, 0, 0));
-      requirements.setLayout(new BoxLayout(requirements, BoxLayout.Y_AXIS));
-      requirements.setVisible(false);
-      requirements.setAlignmentX(0);
-
-      //requirements 'parent' label
-      requirementsLabel = new JBLabel("<html><h2>Requirements</h2></html>");
-      requirementsLabel.setAlignmentX(0);
-      //add a TreeListener to the label, passing in the panel
-      //this listener shows the requirements panel when the requirements label is pressed
-      requirementsLabel.addMouseListener(new TreeListener(requirements, requirementsLabel));
-      //add the title to the panel
-      topPanel.add(requirementsLabel);
-      topPanel.add(requirements);
-    }
-    else {
-      //clear the panel, to repopulate it
-      requirements.removeAll();
-    }
-    Gson gson = new Gson();
-    //getAssignedRequirements returns an InputStream with the JSON from the REST request, that is then read by the JsonReader
-    JsonReader jsonReader = new JsonReader(new InputStreamReader(SpiraTeamUtil.getAssignedRequirements(credentials)));
-    //Turn the JSON into something java understands
-    List<LinkedTreeMap> list = gson.fromJson(jsonReader, ArrayList.class);
-    //only show requirements if there are any assigned to the user
-    if(list.size() > 0) {
-      //show the label
-      requirementsLabel.setVisible(true);
-      //loop through every LinkedTreeMap in list
-      for (LinkedTreeMap map : list) {
-        addArtifactToPanel(map, credentials);
-      }
-    }
-    else {
-      //need to hide the label
-      requirementsLabel.setVisible(false);
-    }
-  }
-
-  /**
-   * Performs a REST call and adds all tasks to {@code topPanel}
+   * Shows what was there last time, so the window does not wait on the server, then fetches the current artifacts
+   * in the background and swaps them in once they arrive. The snapshot is read from disk off the Event Dispatch Thread
    */
-  private void addTasks(SpiraTeamCredentials credentials) throws IOException {
-    if(tasks == null) {
-      //create a panel which will fit under the big tasksLabel
-      tasks = new JBPanel();
-      tasks.setBorder(new EmptyBorder(0, 10, 0, 0));
-      tasks.setLayout(new BoxLayout(tasks, BoxLayout.Y_AXIS));
-      tasks.setVisible(false);
-      tasks.setAlignmentX(0);
-
-      //tasks 'parent' label
-      tasksLabel = new JBLabel("<html><h2>Tasks</h2></html>");
-      tasksLabel.setAlignmentX(0);
-      //add a TreeListener to the label, passing in the panel
-      //this listener shows the tasks panel when the tasks label is pressed
-      tasksLabel.addMouseListener(new TreeListener(tasks, tasksLabel));
-      //add the title to the panel
-      topPanel.add(tasksLabel);
-      topPanel.add(tasks);
-    }
-    else {
-      //clear the panel, to repopulate it
-      tasks.removeAll();
-    }
-    Gson gson = new Gson();
-    //getAssignedRequirements returns an InputStream with the JSON from the REST request, that is then read by the JsonReader
-    JsonReader jsonReader = new JsonReader(new InputStreamReader(SpiraTeamUtil.getAssignedTasks(credentials)));
-    //Turn the JSON into something java understands
-    ArrayList<LinkedTreeMap> list = gson.fromJson(jsonReader, ArrayList.class);
-    //only add if there are assigned tasks
-    if(list.size() > 0) {
-      tasksLabel.setVisible(true);
-      //loop through every map in list
-      for (LinkedTreeMap map : list) {
-        addArtifactToPanel(map, credentials);
+  private void showSnapshotAndRefresh(Project project, SpiraTeamCredentials credentials) {
+    ApplicationManager.getApplication().executeOnPooledThread(() -> {
+      ArtifactSnapshot snapshot = ArtifactSnapshotStore.load(credentials);
+      if(snapshot != null) {
+        //the refresh below only has to report what changed since the snapshot
+        SpiraTeamRefreshPipeline.seed(credentials, snapshot.getArtifacts());
       }
-    }
-    else {
-      //need to hide the label
-      tasksLabel.setVisible(false);
-    }
+      ApplicationManager.getApplication().invokeLater(() -> {
+        //the window has been reset while the snapshot was being read
+        if(refresh == null)
+          return;
+        if(snapshot != null && artifactTree == null) {
+          showArtifacts(snapshot.getArtifacts(), credentials);
+          date = snapshot.getAsOf();
+          dateRefreshed.setText("As of: " + dateFormat.format(date));
+        }
+        refreshWithProgress(project, credentials, false);
+      });
+    });
   }
 
   /**
-   * Performs a REST call and adds all incidents to {@code topPanel}
+   * Brings the tree up to date with the given artifacts, only touching the rows which changed
+   * @param artifacts Every artifact assigned to the user
    */
-  private void addIncidents(SpiraTeamCredentials credentials) throws IOException {
-    if(incidents == null) {
-      //create a panel which will fit under the big incidentsLabel
-      incidents = new JBPanel();
-      //make the panel have no border
-      incidents.setBorder(new EmptyBorder(0, 10, 0, 0));
-      //make the panel lay out its children horizontally
-      incidents.setLayout(new BoxLayout(incidents, BoxLayout.Y_AXIS));
-      incidents.setVisible(false);
-      incidents.setAlignmentX(0);
-
-      //incidents 'parent' label
-      incidentsLabel = new JBLabel("<html><h2>Incidents</h2></html>");
-      incidentsLabel.setAlignmentX(0);
-      //add a TreeListener to the label, passing in the panel
-      //this listener shows the incidents panel when the incidents label is pressed
-      incidentsLabel.addMouseListener(new TreeListener(incidents, incidentsLabel));
-      //add the title to the panel
-      topPanel.add(incidentsLabel);
-      topPanel.add(incidents);
+  private void showArtifacts(AssignedArtifacts artifacts, SpiraTeamCredentials credentials) {
+    if(artifactTree == null) {
+      createArtifactTree(credentials);
+      artifactTreeModel.setArtifacts(artifacts);
+      //if the last opened artifact is still assigned, select it and show it in the bottom panel
+      //this allows artifacts to stay open through restarts
+      TreePath lastOpen = artifactTreeModel.findArtifact(credentials.getLastOpenArtifactType(),
+                                                          credentials.getLastOpenArtifactId());
+      if(lastOpen != null)
+        artifactTree.setSelectionPath(lastOpen);
+      return;
     }
-    else {
-      //clear the panel
-      incidents.removeAll();
+    Artifact wasSelected = ArtifactTreeModel.getArtifact(artifactTree.getSelectionPath());
+    //selection, expansion and scrolling are kept as only the changed rows are touched
+    artifactTreeModel.update(artifacts);
+    //a row the server sent in a new position is taken out of the tree and put back, which drops its selection
+    if(wasSelected != null && artifactTree.getSelectionPath() == null) {
+      TreePath moved = artifactTreeModel.findArtifact(wasSelected.getArtifactType(), wasSelected.getArtifactId());
+      if(moved != null)
+        artifactTree.setSelectionPath(moved);
     }
-    Gson gson = new Gson();
-    //getAssignedIncidents returns an InputStream with the JSON from the REST request, that is then read by the JsonReader
-    JsonReader jsonReader = new JsonReader(new InputStreamReader(SpiraTeamUtil.getAssignedIncidents(credentials)));
-    //Turn the JSON into something java understands
-    List<LinkedTreeMap> list = gson.fromJson(jsonReader, ArrayList.class);
-    //only show incidents if there are any assigned to the user
-    if(list.size() > 0) {
-      //show the label
-      incidentsLabel.setVisible(true);
-      //loop through every LinkedTreeMap in list
-      for (LinkedTreeMap map : list) {
-        addArtifactToPanel(map, credentials);
+    Artifact selected = ArtifactTreeModel.getArtifact(artifactTree.getSelectionPath());
+    if(selected == null) {
+      //the artifact in the bottom panel is no longer assigned to the user
+      if(shownArtifact != null) {
+        shownArtifact = null;
+        if(pendingDetails != null) {
+          pendingDetails.cancel(true);
+          pendingDetails = null;
+        }
+        bottomPanel.removeAll();
+        bottomPanel.updateUI();
       }
     }
-    else {
-      //need to hide the label
-      incidentsLabel.setVisible(false);
+    //the artifact in the bottom panel has been refreshed, so show the new values
+    else if(selected != shownArtifact) {
+      showInformation(selected, credentials);
     }
   }
 
   /**
-   * Adds the information to the correct panel. Checks which panel to add to dynamically
-   * @param map Map which contains the information needed to add an artifact
+   * Creates the tree which shows every assigned artifact and adds it to {@code topPanel}
    */
-  public void addArtifactToPanel(LinkedTreeMap map, SpiraTeamCredentials credentials) {
-
-    //get common properties
-    //get the project name of the artifact
-    String projectName = (String)map.get("ProjectName");
-    //the name of the artifact
-    String name = (String)map.get("Name");
-    //get the description of the artifact
-    String description = (String)map.get("Description");
-    //get the project Id, cast it to a double and get its integer value
-    int projectId = ((Double)map.get("ProjectId")).intValue();
-
-    //if the artifact is a requirement
-    if(map.containsKey("RequirementTypeName")) {
-      int artifactId = ((Double)map.get("RequirementId")).intValue();
-      String priorityName = (String)map.get("ImportanceName");
-      //workflow status name
-      String status = (String)map.get("StatusName");
-      String type = (String)map.get("RequirementTypeName");
-
-      //create an artifact with the fields from above
-      Artifact artifact = new Requirement(projectId, projectName, artifactId, name, priorityName);
-      //set the description of the artifact
-      artifact.setDescription(description);
-      artifact.setStatus(status);
-      JBLabel label = new JBLabel(name);
-      label.setAlignmentX(0);
-      //allow the user to click the label
-      label.addMouseListener(new TopLabelMouseListener(artifact, label, this, credentials));
-      requirements.add(label);
-      //create empty space between the artifacts
-      requirements.add(Box.createRigidArea(new Dimension(0,3)));
-      //if the last opened artifact is the same as the one currently being built, show it in the bottom panel
-      //this allows artifacts to stay open through restarts and refreshes
-      if(credentials.getLastOpenArtifactType() == ArtifactType.REQUIREMENT && credentials.getLastOpenArtifactId() == artifactId) {
-        showInformation(artifact, credentials, label);
-      }
-    }
-    //if the artifact is an incident
-    else if(map.containsKey("IncidentTypeName")) {
-      //get the incident Id, cast it to a double and get its integer value
-      //we call it artifact Id as it is a property in the Artifact class
-      int artifactId = ((Double)map.get("IncidentId")).intValue();
-      String priorityName = (String)map.get("PriorityName");
-      String status = (String)map.get("IncidentStatusName");
-      //the type of incident ex bug, incident, etc
-      String type = (String)map.get("IncidentTypeName");
-      //create an artifact with the fields from above
-      Artifact artifact = new Incident(projectId, projectName, artifactId, name, priorityName);
-      //set the description
-      artifact.setDescription(description);
-      artifact.setStatus(status);
-      artifact.setType(type);
-      //create a label which says the name of the artifact
-      JBLabel label = new JBLabel(name);
-      label.setAlignmentX(0);
-      //add a listener, see the LabelMouseListener class below
-      label.addMouseListener(new TopLabelMouseListener(artifact, label, this, credentials));
-      //add the label to the incidents panel
-      incidents.add(label);
-      //create empty space between the artifacts
-      incidents.add(Box.createRigidArea(new Dimension(0,3)));
-      //if the last opened artifact is the same as the one currently being built, show it in the bottom panel
-      //this allows artifacts to stay open through restarts and refreshes
-      if(credentials.getLastOpenArtifactType() == ArtifactType.INCIDENT && credentials.getLastOpenArtifactId() == artifactId) {
-        showInformation(artifact, credentials, label);
-      }
-    }
-    //if the artifact is a task
-    else if(map.containsKey("TaskPriorityName")) {
-      int artifactId = ((Double)map.get("TaskId")).intValue();
-      String priorityName = (String)map.get("TaskPriorityName");
-      String status = (String)map.get("TaskStatusName");
-      String type = (String)map.get("TaskTypeName");
-
-      //create an artifact with the fields from above
-      Artifact artifact = new Task(projectId, projectName, artifactId, name, priorityName);
-      //set the description
-      artifact.setDescription(description);
-      artifact.setStatus(status);
-      artifact.setType(type);
-      JBLabel label = new JBLabel(name);
-      label.setAlignmentX(0);
-      //allow the user to click on the label
-      label.addMouseListener(new TopLabelMouseListener(artifact, label, this, credentials));
-      tasks.add(label);
-      //create empty space between the artifacts
-      tasks.add(Box.createRigidArea(new Dimension(0,3)));
-      //if the last opened artifact is the same as the one currently being built, show it in the bottom panel
-      //this allows artifacts to stay open through restarts and refreshes
-      if(credentials.getLastOpenArtifactType() == ArtifactType.TASK && credentials.getLastOpenArtifactId() == artifactId) {
-        showInformation(artifact, credentials, label);
-      }
-    }
+  private void createArtifactTree(SpiraTeamCredentials credentials) {
+    artifactTreeModel = new ArtifactTreeModel();
+    artifactTree = new Tree(artifactTreeModel);
+    artifactTree.setRootVisible(false);
+    artifactTree.setShowsRootHandles(true);
+    artifactTree.setCellRenderer(new ArtifactTreeCellRenderer());
+    artifactTree.getSelectionModel().setSelectionMode(TreeSelectionModel.SINGLE_TREE_SELECTION);
+    //with a fixed row height only the visible rows are ever measured or painted
+    if(artifactTree.getRowHeight() <= 0)
+      artifactTree.setRowHeight(artifactTree.getFontMetrics(artifactTree.getFont()).getHeight() + 4);
+    artifactTree.setLargeModel(true);
+    artifactTree.setAlignmentX(0);
+    //a single listener for every artifact in the tree
+    artifactTree.addTreeSelectionListener(e -> {
+      Artifact artifact = ArtifactTreeModel.getArtifact(e.getNewLeadSelectionPath());
+      if(artifact != null)
+        showInformation(artifact, credentials);
+    });
+    topPanel.add(artifactTree);
     topPanel.updateUI();
   }
 }
@@ -0,0 +1,437 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inflectra.idea.ui.dialogs;
+
+import inflectra.idea.core.SpiraTeamBulkCreator;
+import inflectra.idea.core.SpiraTeamCredentials;
+import inflectra.idea.core.SpiraTeamSession;
+import inflectra.idea.core.SpiraTeamUtil;
+import inflectra.idea.core.cache.ProjectMetadata;
+import inflectra.idea.core.cache.ProjectMetadataService;
+import inflectra.idea.core.model.SpiraTeamArtifactType;
+import inflectra.idea.core.model.SpiraTeamPriority;
+import inflectra.idea.core.model.SpiraTeamProject;
+import inflectra.idea.core.model.SpiraTeamUser;
+import inflectra.idea.core.model.artifacts.Artifact;
+import inflectra.idea.core.model.artifacts.ArtifactDraft;
+import inflectra.idea.core.model.artifacts.ArtifactType;
+import inflectra.idea.ui.SpiraToolWindowFactory;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.ComboBox;
+import com.intellij.openapi.ui.DialogWrapper;
+import com.intellij.openapi.ui.ValidationInfo;
+import com.intellij.ui.components.JBLabel;
+import com.intellij.ui.components.JBList;
+import com.intellij.ui.components.JBPanel;
+import com.intellij.ui.components.JBScrollPane;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.*;
+import javax.swing.border.EmptyBorder;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+/**
+ * The popup which is used to create many artifacts of the same kind at once, one per line
+ * <p>Every line becomes a draft, and the drafts are submitted together by the {@link SpiraTeamBulkCreator}.
+ * The dialog stays open to show how each one went, and OK becomes a retry button which only submits the
+ * drafts which failed</p>
+ * @author Peter Geertsema
+ */
+public class SpiraTeamBulkCreateDialog extends DialogWrapper {
+  private SpiraTeamCredentials credentials;
+  private Project project;
+
+  /**
+   * Allows users to select which project to create the artifacts in
+   */
+  private ComboBox<SpiraTeamProject> projects;
+  /**
+   * Allows users to select which artifact type to create
+   */
+  private ComboBox<ArtifactType> typeSelection;
+  /**
+   * The requirement, task or incident type, ex Bug
+   */
+  private ComboBox<SpiraTeamArtifactType> artifactType;
+  private ComboBox<SpiraTeamUser> owner;
+  private ComboBox<SpiraTeamPriority> priority;
+  /**
+   * The names of the artifacts, one per line
+   */
+  private JTextArea names;
+  /**
+   * How each draft went, in the same order as the names
+   */
+  private DefaultListModel<String> resultsModel = new DefaultListModel<>();
+
+  /**
+   * The users, types and priorities of the selected project, null until they have arrived
+   */
+  private ProjectMetadata metadata;
+  /**
+   * Retrieves the projects available to the user. Cancelled if the dialog is closed first
+   */
+  private Future<?> projectsLoad;
+  /**
+   * Waits on the users, types and priorities of the selected project. Cancelled if the selection changes
+   */
+  private CompletableFuture<?> metadataLoad;
+  /**
+   * The results of the last submission, null until the drafts have been submitted
+   */
+  private List<SpiraTeamBulkCreator.Result> results;
+  /**
+   * Whether drafts are currently being submitted
+   */
+  private boolean submitting;
+
+  public SpiraTeamBulkCreateDialog(Project project, SpiraTeamCredentials credentials) {
+    super(project);
+    this.credentials = credentials;
+    this.project = project;
+    //start fetching the users, types and priorities of the projects the user is likely to pick
+    ProjectMetadataService.prefetch(credentials, credentials.getRecentProjectIds());
+    init();
+    setTitle("Bulk Create Artifacts");
+    setOKButtonText("Create");
+  }
+
+  @Nullable
+  @Override
+  protected JComponent createCenterPanel() {
+    //the panel to be returned
+    JBPanel out = new JBPanel();
+    //have the box lay out its children vertically
+    out.setLayout(new BoxLayout(out, BoxLayout.Y_AXIS));
+    out.setBorder(new EmptyBorder(5,5,5,5));
+    out.setAlignmentX(0);
+
+    //the dialog opens straight away, with a placeholder until the projects have been retrieved
+    projects = new ComboBox<>(new SpiraTeamProject[] {new SpiraTeamProject("Loading projects...", -1)});
+    projects.setAlignmentX(0);
+    projects.setEnabled(false);
+    projects.addActionListener(l -> selectProject());
+    out.add(projects);
+    out.add(Box.createRigidArea(new Dimension(0,10)));
+
+    typeSelection = new ComboBox<>(new ArtifactType[] {ArtifactType.PLACERHOLDER});
+    typeSelection.setAlignmentX(0);
+    typeSelection.addActionListener(l -> showOptions());
+    out.add(typeSelection);
+    out.add(Box.createRigidArea(new Dimension(0,10)));
+
+    //panel which allows type, priority and owner to be side-by-side
+    JBPanel options = new JBPanel();
+    options.setAlignmentX(0);
+    options.setLayout(new GridLayout(2,3));
+    options.add(new JBLabel("Type: "));
+    options.add(new JBLabel("Priority: "));
+    options.add(new JBLabel("Owner: "));
+    artifactType = new ComboBox<>();
+    priority = new ComboBox<>();
+    owner = new ComboBox<>();
+    options.add(artifactType);
+    options.add(priority);
+    options.add(owner);
+    out.add(options);
+    out.add(Box.createRigidArea(new Dimension(0,10)));
+
+    JBLabel namesLabel = new JBLabel("Names (one artifact per line):");
+    namesLabel.setAlignmentX(0);
+    out.add(namesLabel);
+    names = new JTextArea(10, 40);
+    JBScrollPane namesScroll = new JBScrollPane(names);
+    namesScroll.setAlignmentX(0);
+    out.add(namesScroll);
+    out.add(Box.createRigidArea(new Dimension(0,10)));
+
+    JBList<String> resultsList = new JBList<>(resultsModel);
+    JBScrollPane resultsScroll = new JBScrollPane(resultsList);
+    resultsScroll.setAlignmentX(0);
+    resultsScroll.setPreferredSize(new Dimension(400, 120));
+    out.add(resultsScroll);
+
+    //OK stays disabled until the projects and the project information have arrived
+    setOKActionEnabled(false);
+    projectsLoad = AppExecutorUtil.getAppExecutorService().submit(() -> {
+      List<SpiraTeamProject> availableProjects = SpiraTeamUtil.getAvailableProjects(credentials);
+      //the dialog was closed before the projects arrived
+      if(Thread.currentThread().isInterrupted())
+        return;
+      //any modality, as the dialog itself is modal
+      ApplicationManager.getApplication().invokeLater(() -> {
+        if(!isDisposed())
+          showProjects(availableProjects);
+      }, ModalityState.any());
+    });
+    return out;
+  }
+
+  /**
+   * Fills the project box once the projects have been retrieved
+   * @param availableProjects The projects available to the current user, null if they could not be retrieved
+   */
+  private void showProjects(List<SpiraTeamProject> availableProjects) {
+    if(availableProjects == null || availableProjects.isEmpty()) {
+      projects.setModel(new DefaultComboBoxModel<>(new SpiraTeamProject[] {
+        new SpiraTeamProject("Could not retrieve your projects", -1)}));
+      return;
+    }
+    int selected = 0;
+    for(int i=0; i<availableProjects.size(); i++) {
+      //default to the project the user last created an artifact in
+      if(availableProjects.get(i).getProjectId() == credentials.getLastCreatedProjectId())
+        selected = i;
+    }
+    projects.setModel(new DefaultComboBoxModel<>(availableProjects.toArray(new SpiraTeamProject[0])));
+    projects.setEnabled(true);
+    //fires the listener, which loads the information of the selected project
+    projects.setSelectedIndex(selected);
+  }
+
+  /**
+   * Called when a project is selected. Fetches its users, types and priorities unless they are already in memory
+   */
+  private void selectProject() {
+    SpiraTeamProject selected = (SpiraTeamProject) projects.getSelectedItem();
+    //fired while the projects are being replaced
+    if(selected == null || selected.getProjectId() == -1 || selected.getUserRole() == null)
+      return;
+    ArtifactType lastSelected = (ArtifactType) typeSelection.getSelectedItem();
+    //only offer the types the user can create in the project
+    typeSelection.setModel(new DefaultComboBoxModel<>(selected.getUserRole().getPossibleArtifactTypes()));
+    if(selected.getUserRole().canCreate(lastSelected))
+      typeSelection.setSelectedItem(lastSelected);
+    else if(selected.getUserRole().canCreate(credentials.getLastCreatedArtifactType()))
+      typeSelection.setSelectedItem(credentials.getLastCreatedArtifactType());
+
+    //whatever was loading for the previous project is no longer needed
+    if(metadataLoad != null)
+      metadataLoad.cancel(false);
+    metadata = null;
+    showOptions();
+    metadataLoad = ProjectMetadataService.getAsync(credentials, selected.getProjectId())
+      .whenComplete((loaded, error) -> ApplicationManager.getApplication().invokeLater(() -> {
+        //the user has since picked another project, or closed the dialog
+        if(projects.getSelectedItem() != selected || isDisposed() || error != null)
+          return;
+        metadata = loaded;
+        showOptions();
+      }, ModalityState.any()));
+  }
+
+  /**
+   * Fills the type, priority and owner boxes for the selected artifact type
+   */
+  private void showOptions() {
+    ArtifactType type = (ArtifactType) typeSelection.getSelectedItem();
+    if(metadata == null || type == null || type == ArtifactType.PLACERHOLDER) {
+      artifactType.setModel(new DefaultComboBoxModel<>());
+      priority.setModel(new DefaultComboBoxModel<>());
+      owner.setModel(new DefaultComboBoxModel<>());
+      setOKActionEnabled(false);
+      return;
+    }
+    SpiraTeamArtifactType[] types;
+    SpiraTeamPriority[] priorities;
+    if(type == ArtifactType.INCIDENT) {
+      types = metadata.getIncidentTypes();
+      priorities = metadata.getIncidentPriorities();
+    }
+    else if(type == ArtifactType.TASK) {
+      types = metadata.getTaskTypes();
+      priorities = SpiraTeamUtil.getTaskPriorities();
+    }
+    else {
+      types = metadata.getRequirementTypes();
+      priorities = SpiraTeamUtil.getRequirementPriorities();
+    }
+    artifactType.setModel(new DefaultComboBoxModel<>(types));
+    priority.setModel(new DefaultComboBoxModel<>(priorities));
+    //the current user is listed first, so they are the default owner
+    owner.setModel(new DefaultComboBoxModel<>(metadata.getUsers()));
+    setOKActionEnabled(!submitting);
+  }
+
+  /**
+   * Ensures that the information entered is valid
+   */
+  @Override
+  protected ValidationInfo doValidate() {
+    //nothing needs to be entered to retry
+    if(results != null)
+      return null;
+    if(typeSelection.getSelectedItem() == ArtifactType.PLACERHOLDER) {
+      return new ValidationInfo("You must choose a type to create", typeSelection);
+    }
+    else if(getNames().isEmpty()) {
+      return new ValidationInfo("You must enter at least one name", names);
+    }
+    else if(artifactType.getSelectedItem() == null) {
+      return new ValidationInfo("You cannot create this type of artifact in this project", artifactType);
+    }
+    return null;
+  }
+
+  /**
+   * Called when the user presses Create or Retry Failed. The dialog stays open to show the results
+   */
+  @Override
+  protected void doOKAction() {
+    submitting = true;
+    setOKActionEnabled(false);
+    CompletableFuture<List<SpiraTeamBulkCreator.Result>> future;
+    if(results == null) {
+      List<ArtifactDraft> drafts = createDrafts();
+      //the drafts can't be changed once they have been submitted
+      setInputsEnabled(false);
+      SpiraTeamProject selected = (SpiraTeamProject) projects.getSelectedItem();
+      credentials.setLastCreatedProjectId(selected.getProjectId());
+      credentials.addRecentProjectId(selected.getProjectId());
+      credentials.setLastCreatedArtifactType((ArtifactType) typeSelection.getSelectedItem());
+      resultsModel.clear();
+      for(ArtifactDraft draft: drafts) {
+        resultsModel.addElement("Waiting: " + draft.getName());
+      }
+      future = SpiraTeamBulkCreator.create(credentials, drafts, this::showResult);
+    }
+    else {
+      for(int i=0; i<results.size(); i++) {
+        if(!results.get(i).isSucceeded())
+          resultsModel.set(i, "Retrying: " + results.get(i).getDraft().getName());
+      }
+      future = SpiraTeamBulkCreator.retryFailed(credentials, results, this::showResult);
+    }
+    future.whenComplete((finished, error) -> ApplicationManager.getApplication().invokeLater(() -> {
+      submitting = false;
+      if(error != null)
+        return;
+      boolean reload = false;
+      int failed = 0;
+      SpiraTeamSession session = SpiraTeamSession.getIfResolved(credentials);
+      for(int i=0; i<finished.size(); i++) {
+        SpiraTeamBulkCreator.Result result = finished.get(i);
+        if(!result.isSucceeded())
+          failed++;
+        //only show what was newly created and assigned to the user
+        else if((results == null || !results.get(i).isSucceeded()) && session != null
+                && result.getDraft().getOwnerId() == session.getUserId()) {
+          //insert it straight into the window, only reloading everything if that is not possible
+          if(result.getCreated() == null || !SpiraToolWindowFactory.addCreatedArtifact(result.getCreated()))
+            reload = true;
+        }
+      }
+      results = finished;
+      if(reload)
+        SpiraToolWindowFactory.reload(project);
+      if(isDisposed())
+        return;
+      if(failed > 0) {
+        setOKButtonText("Retry Failed");
+        setOKActionEnabled(true);
+      }
+      else {
+        setCancelButtonText("Close");
+      }
+    }, ModalityState.any()));
+  }
+
+  /**
+   * Shows how a single draft went, called on the pooled thread which created it
+   */
+  private void showResult(int index, SpiraTeamBulkCreator.Result result) {
+    String text;
+    if(result.isSucceeded()) {
+      Artifact created = result.getCreated();
+      text = "Created" + (created != null ? " " + created.getArtifactType().getPrefix() + ":" + created.getArtifactId() : "")
+             + ": " + result.getDraft().getName();
+    }
+    else
+      text = "Failed: " + result.getDraft().getName() + " (" + result.getError() + ")";
+    ApplicationManager.getApplication().invokeLater(() -> {
+      if(!isDisposed())
+        resultsModel.set(index, text);
+    }, ModalityState.any());
+  }
+
+  /**
+   * @return A draft for each name entered, all with the selected type, priority and owner
+   */
+  private List<ArtifactDraft> createDrafts() {
+    SpiraTeamProject selected = (SpiraTeamProject) projects.getSelectedItem();
+    ArtifactType type = (ArtifactType) typeSelection.getSelectedItem();
+    SpiraTeamArtifactType selectedType = (SpiraTeamArtifactType) artifactType.getSelectedItem();
+    SpiraTeamPriority selectedPriority = (SpiraTeamPriority) priority.getSelectedItem();
+    SpiraTeamUser selectedOwner = (SpiraTeamUser) owner.getSelectedItem();
+    List<ArtifactDraft> out = new ArrayList<>();
+    for(String name: getNames()) {
+      ArtifactDraft draft = new ArtifactDraft(type, selected.getProjectId(), name, "");
+      draft.setTypeId(selectedType.getTypeId());
+      if(selectedPriority != null)
+        draft.setPriorityId(selectedPriority.getPriorityId());
+      if(selectedOwner != null)
+        draft.setOwnerId(selectedOwner.getUserId());
+      out.add(draft);
+    }
+    return out;
+  }
+
+  /**
+   * @return Every name entered, skipping blank lines
+   */
+  private List<String> getNames() {
+    List<String> out = new ArrayList<>();
+    for(String line: names.getText().split("\n")) {
+      if(!line.trim().isEmpty())
+        out.add(line.trim());
+    }
+    return out;
+  }
+
+  private void setInputsEnabled(boolean enabled) {
+    projects.setEnabled(enabled);
+    typeSelection.setEnabled(enabled);
+    artifactType.setEnabled(enabled);
+    priority.setEnabled(enabled);
+    owner.setEnabled(enabled);
+    names.setEditable(enabled);
+  }
+
+  /**
+   * Stops waiting on the server once the dialog is closed. Artifacts already being created are still created
+   */
+  @Override
+  protected void dispose() {
+    if(projectsLoad != null)
+      projectsLoad.cancel(true);
+    if(metadataLoad != null)
+      metadataLoad.cancel(false);
+    super.dispose();
+  }
+
+  @Nullable
+  @Override
+  public JComponent getPreferredFocusedComponent() {
+    return names;
+  }
+}
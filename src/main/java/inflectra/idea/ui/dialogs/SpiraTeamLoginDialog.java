@@ -16,6 +16,7 @@
 package inflectra.idea.ui.dialogs;
 
 import inflectra.idea.core.SpiraTeamCredentials;
+import inflectra.idea.core.SpiraTeamSession;
 import inflectra.idea.core.model.artifacts.ArtifactType;
 import inflectra.idea.ui.SpiraToolWindowFactory;
 import com.intellij.openapi.project.Project;
@@ -38,6 +39,8 @@ public class SpiraTeamLoginDialog extends DialogWrapper {
   private JBTextField url;
   private JBTextField username;
   private JBTextField rssToken;
+  private JBTextField autoRefreshMinutes;
+  private JBTextField referenceDataTtlMinutes;
   private SpiraTeamCredentials credentials;
   private Project project;
 
@@ -95,6 +98,24 @@ public class SpiraTeamLoginDialog extends DialogWrapper {
     //add spacing between the label and the text field
     out.add(Box.createRigidArea(new Dimension(0, 3)));
     out.add(rssToken);
+    //create spacing between them
+    out.add(Box.createRigidArea(new Dimension(0,10)));
+
+    autoRefreshMinutes = new JBTextField(String.valueOf(credentials.getAutoRefreshMinutes()));
+    autoRefreshMinutes.setAlignmentX(0);
+    out.add(new JBLabel("Refresh automatically every (minutes, 0 to turn off):"));
+    //add spacing between the label and the text field
+    out.add(Box.createRigidArea(new Dimension(0, 3)));
+    out.add(autoRefreshMinutes);
+    //create spacing between them
+    out.add(Box.createRigidArea(new Dimension(0,10)));
+
+    referenceDataTtlMinutes = new JBTextField(String.valueOf(credentials.getReferenceDataTtlMinutes()));
+    referenceDataTtlMinutes.setAlignmentX(0);
+    out.add(new JBLabel("Keep project users and types for (minutes, 0 to always reload):"));
+    //add spacing between the label and the text field
+    out.add(Box.createRigidArea(new Dimension(0, 3)));
+    out.add(referenceDataTtlMinutes);
 
     return out;
   }
@@ -110,10 +131,22 @@ public class SpiraTeamLoginDialog extends DialogWrapper {
       this.credentials.setLastCreatedProjectId(-1);
       this.credentials.setLastOpenArtifactType(ArtifactType.PLACERHOLDER);
     }
+    //anything cached for the old credentials may not be visible to the new ones
+    if(!url.getText().equals(credentials.getUrl()) || !username.getText().equals(credentials.getUsername())
+       || !rssToken.getText().equals(credentials.getToken())) {
+      SpiraTeamSession.invalidate();
+    }
+    //the recent projects of another user or server may not be visible any more
+    if(!url.getText().equals(credentials.getUrl()) || !username.getText().equals(credentials.getUsername()))
+      this.credentials.clearRecentProjectIds();
     //need to store the new credentials
     this.credentials.setUrl(url.getText());
     this.credentials.setUsername(username.getText());
     this.credentials.setToken(rssToken.getText());
+    this.credentials.setAutoRefreshMinutes(Integer.parseInt(autoRefreshMinutes.getText().trim()));
+    this.credentials.setReferenceDataTtlMinutes(Integer.parseInt(referenceDataTtlMinutes.getText().trim()));
+    //resolve the user and roles once, to be shared by the rest of the plug-in
+    SpiraTeamSession.get(credentials);
     //reload the SpiraTeam Window
     SpiraToolWindowFactory.reload(project);
     super.doOKAction();
@@ -139,9 +172,27 @@ public class SpiraTeamLoginDialog extends DialogWrapper {
     else if(!(rssToken.getText().endsWith("}"))) {
       return new ValidationInfo("You must include the curly braces in your token", rssToken);
     }
+    if(!isPositiveInteger(autoRefreshMinutes.getText()) && !autoRefreshMinutes.getText().trim().equals("0")) {
+      return new ValidationInfo("The refresh interval must be a whole number of minutes", autoRefreshMinutes);
+    }
+    if(!isPositiveInteger(referenceDataTtlMinutes.getText()) && !referenceDataTtlMinutes.getText().trim().equals("0")) {
+      return new ValidationInfo("The time to keep project data must be a whole number of minutes", referenceDataTtlMinutes);
+    }
     return null;
   }
 
+  /**
+   * @return True if the text is a whole number greater than 0, false otherwise
+   */
+  private static boolean isPositiveInteger(String text) {
+    try {
+      return text != null && Integer.parseInt(text.trim()) > 0;
+    }
+    catch(NumberFormatException e) {
+      return false;
+    }
+  }
+
 
   @Nullable
   @Override
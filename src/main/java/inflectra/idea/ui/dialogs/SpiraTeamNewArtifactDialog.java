@@ -15,25 +15,30 @@
  */
 package inflectra.idea.ui.dialogs;
 
-import com.google.gson.Gson;
-import com.google.gson.internal.LinkedTreeMap;
-import com.google.gson.stream.JsonReader;
 import inflectra.idea.core.SpiraTeamCredentials;
+import inflectra.idea.core.SpiraTeamSession;
 import inflectra.idea.core.SpiraTeamUtil;
+import inflectra.idea.core.cache.ProjectMetadata;
+import inflectra.idea.core.cache.ProjectMetadataService;
+import inflectra.idea.core.json.ArtifactJsonParser;
 import inflectra.idea.core.model.SpiraTeamProject;
 import inflectra.idea.core.model.SpiraTeamProjectRole;
-import inflectra.idea.core.model.SpiraTeamUser;
+import inflectra.idea.core.model.artifacts.Artifact;
 import inflectra.idea.core.model.artifacts.ArtifactType;
 import inflectra.idea.ui.SpiraToolWindowFactory;
 import inflectra.idea.ui.panels.NewArtifactPanel;
 import inflectra.idea.ui.panels.NewIncidentPanel;
 import inflectra.idea.ui.panels.NewRequirementPanel;
 import inflectra.idea.ui.panels.NewTaskPanel;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.ComboBox;
 import com.intellij.openapi.ui.DialogWrapper;
 import com.intellij.openapi.ui.ValidationInfo;
+import com.intellij.ui.components.JBLabel;
 import com.intellij.ui.components.JBPanel;
+import com.intellij.util.concurrency.AppExecutorUtil;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
@@ -41,8 +46,9 @@ import javax.swing.border.EmptyBorder;
 import java.awt.*;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
 
 /**
  * The popup which is used to create a new artifact when a user requests it
@@ -75,12 +81,32 @@ public class SpiraTeamNewArtifactDialog extends DialogWrapper {
    * Allows users to select which project to create an artifact in
    */
   private ComboBox<SpiraTeamProject> projects;
+  /**
+   * Contains the fields the user has to put in about the given artifact type and project
+   */
+  private JBPanel fields;
+  /**
+   * Whether the projects available to the user have been retrieved
+   */
+  private boolean projectsLoaded;
+  /**
+   * Retrieves the projects available to the user. Cancelled if the dialog is closed first
+   */
+  private Future<?> projectsLoad;
+  /**
+   * Waits on the users, types and priorities of the selected project. Cancelled if the selection changes
+   */
+  private CompletableFuture<?> metadataLoad;
 
   public SpiraTeamNewArtifactDialog(Project project, SpiraTeamCredentials credentials) {
     super(project);
     this.credentials = credentials;
     this.setResizable(false);
     this.project = project;
+    //start fetching the users, types and priorities of the projects the user is likely to pick
+    ProjectMetadataService.prefetch(credentials, credentials.getRecentProjectIds());
+    //needed once the artifact is created, so it is normally resolved by then
+    SpiraTeamSession.get(credentials);
     init();
     setTitle("New Artifact");
   }
@@ -96,61 +122,25 @@ public class SpiraTeamNewArtifactDialog extends DialogWrapper {
     out.setBorder(new EmptyBorder(5,5,5,5));
     out.setAlignmentX(0);
     //panel which will contain the fields the user has to put in about the given artifact type and project
-    JBPanel fields = new JBPanel();
+    fields = new JBPanel();
     //have the panel lay out its children vertically
     BoxLayout layout = new BoxLayout(fields, BoxLayout.Y_AXIS);
     fields.setLayout(layout);
     fields.setAlignmentX(0);
     fields.setBorder(new EmptyBorder(10,0,0,0));
 
-
-
-    //get the projects available to the current user
-    List<SpiraTeamProject> availableProjectsList = SpiraTeamUtil.getAvailableProjects(credentials);
-    //array necessary to pass into the combo box, 1 greater to account for select option
-    SpiraTeamProject[] availableProjectsArray = new SpiraTeamProject[availableProjectsList.size() + 1];
-    //empty project
-    availableProjectsArray[0] = new SpiraTeamProject("-- Select Project --", -1);
-    //create a role with access to everything
-    SpiraTeamProjectRole selectRole = new SpiraTeamProjectRole();
-    selectRole.setCanCreateRequirement(true);
-    selectRole.setCanCreateIncident(true);
-    selectRole.setCanCreateTask(true);
-    availableProjectsArray[0].setUserRole(selectRole);
-
-    int lastCreatedProjectIndex = 0;
-    //have availableProjectsArray mirror that of availableProjectsList
-    for(int i=0; i<availableProjectsList.size(); i++) {
-      //add one to account for the select project option
-      availableProjectsArray[i + 1] = availableProjectsList.get(i);
-      //if the current project matches that of the one created in before, store it
-      if(availableProjectsList.get(i).getProjectId() == credentials.getLastCreatedProjectId()) {
-        lastCreatedProjectIndex = i + 1;
-        //store the project
-        projectId = availableProjectsList.get(i);
-      }
-    }
-
-    if(projectId == null) {
-      SpiraTeamProject newProject = new SpiraTeamProject("-- Select Project --", -1);
-      //create a new role and give it access to everything
-      SpiraTeamProjectRole role = new SpiraTeamProjectRole();
-      role.setRoleId(-1);
-      role.setCanCreateTask(true);
-      role.setCanCreateIncident(true);
-      role.setCanCreateRequirement(true);
-      newProject.setUserRole(role);
-
-      projectId = newProject;
-    }
-    //create the combo box
-    projects = new ComboBox<>(availableProjectsArray);
+    //the dialog opens straight away, with a placeholder until the projects have been retrieved
+    projectId = createPlaceholderProject("Loading projects...");
+    projects = new ComboBox<>(new SpiraTeamProject[] {projectId});
     projects.setAlignmentX(0);
-    projects.setSelectedIndex(lastCreatedProjectIndex);
+    projects.setEnabled(false);
 
     //listener called every time a new option is selected
     projects.addActionListener(l -> {
       SpiraTeamProject selectedItem = (SpiraTeamProject) projects.getSelectedItem();
+      //fired while the projects are being replaced
+      if(selectedItem == null)
+        return;
       projectId = selectedItem;
       ArtifactType lastSelected = (ArtifactType) typeSelection.getSelectedItem();
       //clear the list, and refill it with valid information
@@ -164,15 +154,7 @@ public class SpiraTeamNewArtifactDialog extends DialogWrapper {
         typeSelection.setSelectedItem(credentials.getLastCreatedArtifactType());
       }
       //need to refresh the options after another project is selected
-      if(type == ArtifactType.REQUIREMENT) {
-        addRequirement(fields);
-      }
-      else if(type == ArtifactType.INCIDENT) {
-        addIncident(fields);
-      }
-      else if(type == ArtifactType.TASK) {
-        addTask(fields);
-      }
+      showFields();
     });
     out.add(projects);
     //create a space between project and artifact type selection
@@ -190,50 +172,153 @@ public class SpiraTeamNewArtifactDialog extends DialogWrapper {
     type = (ArtifactType)typeSelection.getSelectedItem();
     //called every time an option is clicked
     typeSelection.addActionListener(l -> {
+      //fired while the types are being replaced
+      if(typeSelection.getSelectedItem() == null)
+        return;
       type = (ArtifactType)typeSelection.getSelectedItem();
-      if(type == ArtifactType.REQUIREMENT) {
-        addRequirement(fields);
-      }
-      else if(type == ArtifactType.INCIDENT) {
-        addIncident(fields);
-      }
-      else if(type == ArtifactType.TASK) {
-        addTask(fields);
-      }
+      showFields();
     });
     out.add(typeSelection);
     //add the panel with data fields
     out.add(fields);
     //should show fields when the window opens
-    if(type == ArtifactType.REQUIREMENT)
-      addRequirement(fields);
-    else if(type == ArtifactType.INCIDENT)
-      addIncident(fields);
-    else if(type == ArtifactType.TASK)
-      addTask(fields);
-    else
-      addRequirement(fields);
+    showFields();
+
+    //OK stays disabled until the projects have arrived
+    setOKActionEnabled(false);
+    projectsLoad = AppExecutorUtil.getAppExecutorService().submit(() -> {
+      List<SpiraTeamProject> availableProjects = SpiraTeamUtil.getAvailableProjects(credentials);
+      //the dialog was closed before the projects arrived
+      if(Thread.currentThread().isInterrupted())
+        return;
+      //any modality, as the dialog itself is modal
+      ApplicationManager.getApplication().invokeLater(() -> {
+        if(!isDisposed())
+          showProjects(availableProjects);
+      }, ModalityState.any());
+    });
 
     return out;
   }
 
+  /**
+   * Fills the project box once the projects have been retrieved. Must be called on the Event Dispatch Thread
+   * @param availableProjectsList The projects available to the current user, null if they could not be retrieved
+   */
+  private void showProjects(List<SpiraTeamProject> availableProjectsList) {
+    if(availableProjectsList == null) {
+      projects.setModel(new DefaultComboBoxModel<>(new SpiraTeamProject[] {
+        createPlaceholderProject("Could not retrieve your projects")}));
+      return;
+    }
+    //array necessary to pass into the combo box, 1 greater to account for select option
+    SpiraTeamProject[] availableProjectsArray = new SpiraTeamProject[availableProjectsList.size() + 1];
+    //empty project
+    availableProjectsArray[0] = createPlaceholderProject("-- Select Project --");
+
+    int lastCreatedProjectIndex = 0;
+    //have availableProjectsArray mirror that of availableProjectsList
+    for(int i=0; i<availableProjectsList.size(); i++) {
+      //add one to account for the select project option
+      availableProjectsArray[i + 1] = availableProjectsList.get(i);
+      //if the current project matches that of the one created in before, store it
+      if(availableProjectsList.get(i).getProjectId() == credentials.getLastCreatedProjectId()) {
+        lastCreatedProjectIndex = i + 1;
+      }
+    }
+    projectsLoaded = true;
+    projects.setModel(new DefaultComboBoxModel<>(availableProjectsArray));
+    projects.setEnabled(true);
+    //fires the listener, which shows the fields of the selected project
+    projects.setSelectedIndex(lastCreatedProjectIndex);
+  }
+
+  /**
+   * @param name The text shown in the project box
+   * @return A project which is not a real project, with access to everything
+   */
+  private static SpiraTeamProject createPlaceholderProject(String name) {
+    SpiraTeamProject project = new SpiraTeamProject(name, -1);
+    //create a role with access to everything
+    SpiraTeamProjectRole role = new SpiraTeamProjectRole();
+    role.setRoleId(-1);
+    role.setCanCreateRequirement(true);
+    role.setCanCreateIncident(true);
+    role.setCanCreateTask(true);
+    project.setUserRole(role);
+    return project;
+  }
+
+  /**
+   * Shows the fields for the selected project and artifact type, waiting for the users, types and priorities
+   * of the project in the background if they are not already in memory
+   */
+  private void showFields() {
+    //whatever was loading for the previous selection is no longer needed
+    if(metadataLoad != null)
+      metadataLoad.cancel(false);
+    metadataLoad = null;
+    SpiraTeamProject selectedProject = projectId;
+    ArtifactType selectedType = type;
+    //there is nothing to load until a project has been chosen
+    if(selectedProject.getProjectId() == -1) {
+      addFields(null);
+      return;
+    }
+    CompletableFuture<ProjectMetadata> metadata =
+      ProjectMetadataService.getAsync(credentials, selectedProject.getProjectId());
+    if(metadata.isDone() && !metadata.isCompletedExceptionally()) {
+      addFields(metadata.join());
+      return;
+    }
+    //show a placeholder and keep OK disabled until the project information has arrived
+    fields.removeAll();
+    fields.add(new JBLabel("Loading project information..."));
+    fields.updateUI();
+    setOKActionEnabled(false);
+    metadataLoad = metadata.whenComplete((loaded, error) -> ApplicationManager.getApplication().invokeLater(() -> {
+      //the user has since picked something else, or closed the dialog
+      if(selectedProject != projectId || selectedType != type || isDisposed())
+        return;
+      if(error != null) {
+        fields.removeAll();
+        fields.add(new JBLabel("Could not retrieve the project information"));
+        fields.updateUI();
+        return;
+      }
+      addFields(loaded);
+    }, ModalityState.any()));
+  }
+
+  /**
+   * Shows the fields for the selected artifact type
+   * @param metadata The users, types and priorities of the selected project, null if no project is selected
+   */
+  private void addFields(ProjectMetadata metadata) {
+    if(type == ArtifactType.INCIDENT)
+      addIncident(fields, metadata);
+    else if(type == ArtifactType.TASK)
+      addTask(fields, metadata);
+    else
+      addRequirement(fields, metadata);
+    //the required data is there, as long as the projects are
+    setOKActionEnabled(projectsLoaded);
+  }
+
   /**
    * Show the fields about requirements
    * @param panel The panel to add fields to
+   * @param metadata The users, types and priorities of the selected project, null if no project is selected
    */
-  private void addRequirement(JBPanel panel) {
+  private void addRequirement(JBPanel panel, ProjectMetadata metadata) {
     panel.removeAll();
     //if there is not already a requirement panel or another project has been selected, create one
     if(artifactPanel == null)
-      artifactPanel = new NewRequirementPanel(credentials, projectId);
+      artifactPanel = new NewRequirementPanel(credentials, projectId, "", "", metadata);
     else if(artifactPanel.getProjectId() != projectId.getProjectId() || artifactPanel.getArtifactType() != ArtifactType.REQUIREMENT){
       String name = artifactPanel.getArtifactName();
       String description = artifactPanel.getDescription();
-      SpiraTeamUser[] users = null;
-      //only keep users if the project is the same
-      if(artifactPanel.getProjectId() == projectId.getProjectId())
-        users = artifactPanel.getUsers();
-      artifactPanel = new NewRequirementPanel(credentials, projectId, name, description, users);
+      artifactPanel = new NewRequirementPanel(credentials, projectId, name, description, metadata);
     }
     //add the panel to the dialog
     panel.add(artifactPanel);
@@ -243,20 +328,17 @@ public class SpiraTeamNewArtifactDialog extends DialogWrapper {
   /**
    * Show the fields about tasks
    * @param panel The panel to add fields to
+   * @param metadata The users, types and priorities of the selected project, null if no project is selected
    */
-  private void addTask(JBPanel panel) {
+  private void addTask(JBPanel panel, ProjectMetadata metadata) {
     panel.removeAll();
     //if there is not already a task panel or another project has been selected, create one
     if(artifactPanel == null)
-      artifactPanel = new NewTaskPanel(credentials, projectId);
+      artifactPanel = new NewTaskPanel(credentials, projectId, "", "", metadata);
     else if(artifactPanel.getProjectId() != projectId.getProjectId() || artifactPanel.getArtifactType() != ArtifactType.TASK){
       String name = artifactPanel.getArtifactName();
       String description = artifactPanel.getDescription();
-      SpiraTeamUser[] users = null;
-      //only keep users if the project is the same
-      if(artifactPanel.getProjectId() == projectId.getProjectId())
-        users = artifactPanel.getUsers();
-      artifactPanel = new NewTaskPanel(credentials, projectId, name, description, users);
+      artifactPanel = new NewTaskPanel(credentials, projectId, name, description, metadata);
     }
     //add the panel to the dialog
     panel.add(artifactPanel);
@@ -266,26 +348,35 @@ public class SpiraTeamNewArtifactDialog extends DialogWrapper {
   /**
    * Show the fields about incidents
    * @param panel The panel to add fields to
+   * @param metadata The users, types and priorities of the selected project, null if no project is selected
    */
-  private void addIncident(JBPanel panel) {
+  private void addIncident(JBPanel panel, ProjectMetadata metadata) {
     panel.removeAll();
     //if there is not already a task panel or another project has been selected, create one
     if(artifactPanel == null)
-      artifactPanel = new NewIncidentPanel(credentials, projectId);
+      artifactPanel = new NewIncidentPanel(credentials, projectId, "", "", metadata);
     else if(artifactPanel.getProjectId() != projectId.getProjectId() || artifactPanel.getArtifactType() != ArtifactType.INCIDENT){
       String name = artifactPanel.getArtifactName();
       String description = artifactPanel.getDescription();
-      SpiraTeamUser[] users = null;
-      //only keep users if the project is the same
-      if(artifactPanel.getProjectId() == projectId.getProjectId())
-        users = artifactPanel.getUsers();
-      artifactPanel = new NewIncidentPanel(credentials, projectId, name, description, users);
+      artifactPanel = new NewIncidentPanel(credentials, projectId, name, description, metadata);
     }
     //add the panel to the dialog
     panel.add(artifactPanel);
     panel.updateUI();
   }
 
+  /**
+   * Stops waiting on the server once the dialog is closed
+   */
+  @Override
+  protected void dispose() {
+    if(projectsLoad != null)
+      projectsLoad.cancel(true);
+    if(metadataLoad != null)
+      metadataLoad.cancel(false);
+    super.dispose();
+  }
+
   /**
    * Ensures that the information entered is valid
    */
@@ -312,91 +403,28 @@ public class SpiraTeamNewArtifactDialog extends DialogWrapper {
     try {
       //store the projectId for future use
       credentials.setLastCreatedProjectId(projectId.getProjectId());
-      if (type == ArtifactType.REQUIREMENT) {
-        credentials.setLastCreatedArtifactType(ArtifactType.REQUIREMENT);
-        NewRequirementPanel requirementPanel = (NewRequirementPanel)artifactPanel;
-        //create the body of the request
-        String body = "{\"Name\": \"" + requirementPanel.getArtifactName() + "\"" +
-                      ", \"RequirementTypeId\": " + requirementPanel.getSelectedArtifactType().getTypeId() +
-                      ", \"Description\": \"" + requirementPanel.getDescription() + "\"";
-        int userId = requirementPanel.getSelectedOwner().getUserId();
-        //only add the owner if it is not -1, which is assigned if the user makes no choice
-        if (userId != -1) {
-          body += ", \"OwnerId\": " + requirementPanel.getSelectedOwner().getUserId();
-        }
-        int priorityId = requirementPanel.getSelectedPriority().getPriorityId();
-        //only add the priority if it is not -1, which is assigned if the user makes no choice
-        if (priorityId != -1) {
-          body += ", \"ImportanceId\": " + requirementPanel.getSelectedPriority().getPriorityId();
-        }
-
-        body += "}";
-        //create the requirement in the system
-        inputStream = SpiraTeamUtil.createRequirement(credentials, body, projectId.getProjectId());
-      }
-      else if (type == ArtifactType.TASK) {
-        credentials.setLastCreatedArtifactType(ArtifactType.TASK);
-        NewTaskPanel taskPanel = (NewTaskPanel)artifactPanel;
-        //create the body of the request
-        String body = "{\"Name\": \"" + taskPanel.getArtifactName() + "\"" +
-                      ", \"TaskTypeId\": " + taskPanel.getSelectedArtifactType().getTypeId() +
-                      ", \"Description\": \"" + taskPanel.getDescription() + "\"";
-        int ownerId = taskPanel.getSelectedOwner().getUserId();
-        //only add the owner if it is not -1, which is assigned if the user makes no choice
-        if (ownerId != -1) {
-          body += ", \"OwnerId\": " + taskPanel.getSelectedOwner().getUserId();
-        }
-        int priorityId = taskPanel.getSelectedPriority().getPriorityId();
-        //only add the priority if it is not -1, which is assigned if the user makes no choice
-        if (priorityId != -1) {
-          body += ", \"TaskPriorityId\": " + taskPanel.getSelectedPriority().getPriorityId();
-        }
-
-        body += ", \"TaskStatusId\": 1";
-        //TODO: Add support for different task status ID's
-        body += "}";
-        //create the task in the system
-        inputStream = SpiraTeamUtil.createTask(credentials, body, projectId.getProjectId());
-      }
-      else if (type == ArtifactType.INCIDENT) {
-        credentials.setLastCreatedArtifactType(ArtifactType.INCIDENT);
-        NewIncidentPanel incidentPanel = (NewIncidentPanel)artifactPanel;
-        //create the body of the request
-        String body = "{\"Name\": \"" + incidentPanel.getArtifactName() + "\"" +
-                      ", \"IncidentTypeId\": " + incidentPanel.getSelectedArtifactType().getTypeId() +
-                      ", \"Description\": \"" + incidentPanel.getDescription() + "\"";
-        int ownerId = incidentPanel.getSelectedOwner().getUserId();
-        //only add the owner if it is not -1, which is assigned if the user makes no choice
-        if (ownerId != -1) {
-          body += ", \"OwnerId\": " + incidentPanel.getSelectedOwner().getUserId();
-        }
-        int priorityId = incidentPanel.getSelectedPriority().getPriorityId();
-        //only add the priority if it is not -1, which is assigned if the user makes no choice
-        if (priorityId != -1) {
-          body += ", \"PriorityId\": " + incidentPanel.getSelectedPriority().getPriorityId();
-        }
-        body += "}";
-        //create the incident in the system
-        inputStream = SpiraTeamUtil.createIncident(credentials, body, projectId.getProjectId());
-      }
+      credentials.addRecentProjectId(projectId.getProjectId());
+      credentials.setLastCreatedArtifactType(type);
+      //create the artifact in the system. The body is built as JSON, so names and descriptions are escaped
+      inputStream = SpiraTeamUtil.createArtifact(credentials, artifactPanel.toDraft());
       super.doOKAction();
 
-      //TODO: Append new artifact to respective panel without server call
-      //appending does not work due to incorrect information from the server on new artifact creation
-      Gson gson = new Gson();
-      //add ability to read from the input stream
-      JsonReader jsonReader = new JsonReader(new InputStreamReader(inputStream));
-      LinkedTreeMap map = gson.fromJson(jsonReader, LinkedTreeMap.class);
-      Object ownerObject = map.get("OwnerId");
-      //only do stuff if the owner is assigned
-      if(ownerObject != null) {
-        int ownerId = ((Double)ownerObject).intValue();
-        //only add the artifact if the owner owns it
-
-        //only refresh if the user owns it
-        if (SpiraTeamUtil.getUserInformation(credentials).getUserId() == ownerId) {
-          SpiraToolWindowFactory.reload(project);
-        }
+      Artifact created;
+      //closing the stream afterwards so the connection can be reused
+      try(InputStream stream = inputStream) {
+        created = ArtifactJsonParser.parseArtifact(stream);
+      }
+      //only show the artifact if it is assigned to the user
+      if(created != null && created.getOwnerId() != 0) {
+        SpiraTeamSession.get(credentials).thenAccept(session -> {
+          if (session.getUserId() == created.getOwnerId()) {
+            ApplicationManager.getApplication().invokeLater(() -> {
+              //insert it straight into the window, rather than downloading every artifact again
+              if(!SpiraToolWindowFactory.addCreatedArtifact(created))
+                SpiraToolWindowFactory.reload(project);
+            });
+          }
+        });
       }
       SpiraToolWindowFactory.showNotification("New artifact successfully created!");
     }
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inflectra.idea.ui.panels;
+
+import inflectra.idea.core.model.artifacts.Artifact;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the details panels of the most recently selected artifacts, so selecting one again does not rebuild it
+ * <p>Panels are keyed by the artifact and its last-update date. The content hash is only used to check the
+ * panel still shows the same values, such as when the description has been loaded since, so a hash collision
+ * can never show another version's panel. Must only be used on the Event Dispatch Thread</p>
+ * @author Peter Geertsema
+ */
+public class ArtifactDetailsCache {
+  /**
+   * The most panels which are kept at once
+   */
+  public static final int MAX_ENTRIES = 50;
+
+  /**
+   * A panel along with the content hash of the artifact it shows
+   */
+  private static class Entry {
+    private final ArtifactDetailsPanel panel;
+    private final int contentHash;
+
+    Entry(ArtifactDetailsPanel panel, int contentHash) {
+      this.panel = panel;
+      this.contentHash = contentHash;
+    }
+  }
+
+  /**
+   * The panels, least recently used first
+   */
+  private final Map<String, Entry> panels = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+      return size() > MAX_ENTRIES;
+    }
+  };
+
+  /**
+   * @param artifact The artifact to show information about
+   * @param url The URL of the SpiraTeam server, used to link to the artifact
+   * @return The panel for this version of the artifact, built if it is not already cached
+   */
+  public ArtifactDetailsPanel get(Artifact artifact, String url) {
+    String key = artifact.getArtifactType() + ":" + artifact.getProjectId() + ":" + artifact.getArtifactId() + ":"
+                 + artifact.getLastUpdateDate() + ":" + url;
+    int contentHash = artifact.getContentHash();
+    Entry entry = panels.get(key);
+    //rebuild the panel if something shown in it has changed, such as the description having been loaded
+    if(entry == null || entry.contentHash != contentHash) {
+      entry = new Entry(new ArtifactDetailsPanel(artifact, url), contentHash);
+      panels.put(key, entry);
+    }
+    return entry.panel;
+  }
+
+  /**
+   * Removes every cached panel
+   */
+  public void clear() {
+    panels.clear();
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inflectra.idea.ui.panels;
+
+import com.intellij.ui.components.JBLabel;
+import com.intellij.ui.components.JBPanel;
+import inflectra.idea.core.SpiraTeamUtil;
+import inflectra.idea.core.listeners.HyperlinkListener;
+import inflectra.idea.core.model.artifacts.Artifact;
+
+import javax.swing.*;
+
+/**
+ * Shows information about a single artifact in the bottom panel of the SpiraTeam window
+ * <p>The HTML of each label is built in full before it is set, so Swing only parses it once</p>
+ * @author Peter Geertsema
+ */
+public class ArtifactDetailsPanel extends JBPanel {
+
+  /**
+   * @param artifact The artifact to show information about
+   * @param url The URL of the SpiraTeam server, used to link to the artifact
+   */
+  public ArtifactDetailsPanel(Artifact artifact, String url) {
+    setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
+    setAlignmentX(0);
+    //show the name of the artifact as the title of the panel
+    JBLabel title = new JBLabel("<html><div><h2>" + artifact.getPrefix() + ":" + artifact.getArtifactId()
+                                + " - " + artifact.getName() + "</h2></div></html>");
+    //allow user to click title to take to SpiraTeam
+    title.addMouseListener(new HyperlinkListener(SpiraTeamUtil.getArtifactURI(artifact, url), title));
+    add(title);
+
+    //a table of all the values. Has no border
+    StringBuilder table = new StringBuilder("<html><style>th {padding-right: 20px; text-align: left;}</style><table border=\"0\">");
+    //only show the values which are not null
+    addRow(table, "Type", artifact.getType());
+    addRow(table, "Project", artifact.getProjectName());
+    addRow(table, "Status", artifact.getStatus());
+    addRow(table, "Priority", artifact.getPriorityName());
+    //end the table
+    table.append("</table></html>");
+    add(new JBLabel(table.toString()));
+
+    //show description separately
+    String description = artifact.getDescription();
+    if(description != null) {
+      add(new JBLabel("<html><strong>Description:</strong><br><div style=\"word-wrap: normal\">" + description + "</div></html>"));
+    }
+  }
+
+  /**
+   * Adds the given header and data to the table, unless the data is null
+   * @param table The HTML of the table
+   * @param header The name of the property to be shown
+   * @param data The data associated with the header
+   */
+  private static void addRow(StringBuilder table, String header, String data) {
+    if(data == null)
+      return;
+    table.append("<tr><th>").append(header).append("</th><td>").append(data).append("</td></tr>");
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inflectra.idea.ui.panels;
+
+import com.intellij.ui.components.JBLabel;
+import com.intellij.ui.components.JBPanel;
+import inflectra.idea.core.SpiraTeamUtil;
+import inflectra.idea.core.cache.ReferenceDataCache;
+import inflectra.idea.core.http.LatencyHistogram;
+import inflectra.idea.core.http.RequestStatistics;
+import inflectra.idea.core.http.SpiraTeamEndpoint;
+import inflectra.idea.core.http.TrafficStatistics;
+
+import javax.swing.*;
+import java.util.Map;
+
+/**
+ * Shows how long each endpoint takes to respond and to parse, in the bottom panel of the SpiraTeam window
+ * <p>The numbers are read again every couple of seconds while the panel is showing, so a slow refresh can
+ * be watched as it happens</p>
+ * @author Peter Geertsema
+ */
+public class DiagnosticsPanel extends JBPanel {
+  /**
+   * How often the numbers are read again, in milliseconds
+   */
+  private static final int UPDATE_INTERVAL = 2000;
+
+  private final JBLabel table = new JBLabel();
+  private final JBLabel cache = new JBLabel();
+  private final Timer timer = new Timer(UPDATE_INTERVAL, e -> update());
+
+  public DiagnosticsPanel() {
+    setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
+    setAlignmentX(0);
+    add(new JBLabel("<html><div><h2>SpiraTeam Diagnostics</h2></div></html>"));
+    add(new JBLabel("Latency is until the response arrives, parse time is how long the parser took. Times are in ms"));
+    add(table);
+    add(cache);
+    update();
+  }
+
+  @Override
+  public void addNotify() {
+    super.addNotify();
+    //only keep reading the numbers while they can be seen
+    timer.start();
+  }
+
+  @Override
+  public void removeNotify() {
+    timer.stop();
+    super.removeNotify();
+  }
+
+  /**
+   * Reads the numbers again and shows them
+   */
+  private void update() {
+    RequestStatistics requests = SpiraTeamUtil.getRequestStatistics();
+    TrafficStatistics traffic = SpiraTeamUtil.getTrafficStatistics();
+    StringBuilder html = new StringBuilder("<html><style>th {padding-right: 10px; text-align: left;} " +
+                                           "td {padding-right: 10px; text-align: right;}</style><table border=\"0\">");
+    html.append("<tr><th>Endpoint</th><th>Responses</th><th>Errors</th><th>p50</th><th>p95</th><th>p99</th>")
+      .append("<th>Parse p50</th><th>Parse p95</th><th>Parse p99</th><th>KB received</th><th>KB decoded</th>")
+      .append("<th>Status codes</th></tr>");
+    boolean any = false;
+    for(SpiraTeamEndpoint endpoint: SpiraTeamEndpoint.values()) {
+      Map<Integer, Long> statusCodes = requests.getStatusCodes(endpoint);
+      long errors = requests.getErrors(endpoint);
+      //only show the endpoints which have been used
+      if(statusCodes.isEmpty() && errors == 0)
+        continue;
+      any = true;
+      LatencyHistogram latency = requests.getLatency(endpoint);
+      LatencyHistogram parseTime = requests.getParseTime(endpoint);
+      html.append("<tr><th>").append(endpoint.getDisplayName()).append("</th>");
+      addCell(html, Long.toString(latency.getCount()));
+      addCell(html, Long.toString(errors));
+      addPercentiles(html, latency);
+      addPercentiles(html, parseTime);
+      addCell(html, toKilobytes(traffic.getWireBytes(endpoint)));
+      addCell(html, toKilobytes(traffic.getDecodedBytes(endpoint)));
+      StringBuilder codes = new StringBuilder();
+      statusCodes.forEach((statusCode, count) -> {
+        if(codes.length() > 0)
+          codes.append(", ");
+        codes.append(statusCode).append(": ").append(count);
+      });
+      addCell(html, codes.toString());
+      html.append("</tr>");
+    }
+    if(!any)
+      html.append("<tr><th>No requests have been sent yet</th></tr>");
+    html.append("</table></html>");
+    //setting the same HTML again would have Swing parse it again for nothing
+    String text = html.toString();
+    if(!text.equals(table.getText()))
+      table.setText(text);
+
+    ReferenceDataCache referenceData = SpiraTeamUtil.getReferenceDataCache();
+    String cacheText = "Roles, users, types and priorities cache: " + referenceData.getHits() + " hits, " +
+                       referenceData.getMisses() + " misses, " + referenceData.size() + " entries";
+    if(!cacheText.equals(cache.getText()))
+      cache.setText(cacheText);
+  }
+
+  /**
+   * Adds the 50th, 95th and 99th percentiles of the histogram, in milliseconds
+   */
+  private static void addPercentiles(StringBuilder html, LatencyHistogram histogram) {
+    if(histogram.getCount() == 0) {
+      addCell(html, "");
+      addCell(html, "");
+      addCell(html, "");
+      return;
+    }
+    addCell(html, toMilliseconds(histogram.getPercentile(50)));
+    addCell(html, toMilliseconds(histogram.getPercentile(95)));
+    addCell(html, toMilliseconds(histogram.getPercentile(99)));
+  }
+
+  private static void addCell(StringBuilder html, String data) {
+    html.append("<td>").append(data).append("</td>");
+  }
+
+  private static String toMilliseconds(long nanos) {
+    return String.format("%.1f", nanos / 1_000_000.0);
+  }
+
+  private static String toKilobytes(long bytes) {
+    return String.format("%.1f", bytes / 1024.0);
+  }
+}
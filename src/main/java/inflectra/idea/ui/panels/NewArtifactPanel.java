@@ -19,6 +19,7 @@ import inflectra.idea.core.SpiraTeamCredentials;
 import inflectra.idea.core.model.SpiraTeamArtifactType;
 import inflectra.idea.core.model.SpiraTeamPriority;
 import inflectra.idea.core.model.SpiraTeamUser;
+import inflectra.idea.core.model.artifacts.ArtifactDraft;
 import inflectra.idea.core.model.artifacts.ArtifactType;
 import com.intellij.openapi.ui.ComboBox;
 import com.intellij.ui.components.JBLabel;
@@ -143,6 +144,17 @@ public abstract class NewArtifactPanel extends JBPanel {
     return (SpiraTeamArtifactType) artifactType.getSelectedItem();
   }
 
+  /**
+   * @return Everything needed to create the artifact the user has described
+   */
+  public ArtifactDraft toDraft() {
+    ArtifactDraft draft = new ArtifactDraft(getArtifactType(), projectId, getArtifactName(), getDescription());
+    draft.setTypeId(getSelectedArtifactType().getTypeId());
+    draft.setOwnerId(getSelectedOwner().getUserId());
+    draft.setPriorityId(getSelectedPriority().getPriorityId());
+    return draft;
+  }
+
   public ArtifactType getArtifactType() {
     if(this instanceof  NewIncidentPanel)
       return ArtifactType.INCIDENT;
@@ -16,7 +16,7 @@
 package inflectra.idea.ui.panels;
 
 import inflectra.idea.core.SpiraTeamCredentials;
-import inflectra.idea.core.SpiraTeamUtil;
+import inflectra.idea.core.cache.ProjectMetadata;
 import inflectra.idea.core.model.SpiraTeamArtifactType;
 import inflectra.idea.core.model.SpiraTeamPriority;
 import inflectra.idea.core.model.SpiraTeamProject;
@@ -34,16 +34,16 @@ import java.awt.*;
  */
 public class NewIncidentPanel extends NewArtifactPanel {
 
-  public NewIncidentPanel(SpiraTeamCredentials credentials, SpiraTeamProject project, String name, String description, SpiraTeamUser[] user) {
+  public NewIncidentPanel(SpiraTeamCredentials credentials, SpiraTeamProject project, String name, String description,
+                          ProjectMetadata metadata) {
     super(credentials, project.getProjectId(), name, description);
     this.credentials = credentials;
-    this.users = user;
 
     //get the active users in the current project
-    if (projectId != -1 && users == null) {
-      users = SpiraTeamUtil.getProjectUsers(credentials, projectId);
+    if (metadata != null) {
+      users = metadata.getUsers();
     }
-    else if (users == null){
+    else {
       users = new SpiraTeamUser[1];
       users[0] = new SpiraTeamUser("Please select a project", -1, "", -1);
     }
@@ -58,8 +58,8 @@ public class NewIncidentPanel extends NewArtifactPanel {
 
     //the types of tasks in the given project
     SpiraTeamArtifactType[] incidentTypesArr;
-    if(projectId != -1)
-      incidentTypesArr = SpiraTeamUtil.getIncidentTypes(credentials, projectId);
+    if(metadata != null)
+      incidentTypesArr = metadata.getIncidentTypes();
     else {
       incidentTypesArr = new SpiraTeamArtifactType[1];
       incidentTypesArr[0] = new SpiraTeamArtifactType(-1, "Please select a project");
@@ -76,8 +76,8 @@ public class NewIncidentPanel extends NewArtifactPanel {
 
       //priority of the incident
       SpiraTeamPriority[] priorities;
-      if (projectId != -1) {
-        priorities = SpiraTeamUtil.getProjectIncidentPriorities(credentials, projectId);
+      if (metadata != null) {
+        priorities = metadata.getIncidentPriorities();
       }
       else {
         priorities = new SpiraTeamPriority[1];
@@ -118,9 +118,5 @@ public class NewIncidentPanel extends NewArtifactPanel {
     }
   }
 
-  public NewIncidentPanel(SpiraTeamCredentials credentials, SpiraTeamProject project) {
-    this(credentials, project, "", "", null);
-  }
-
 
 }
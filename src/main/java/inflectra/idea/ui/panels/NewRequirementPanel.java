@@ -17,6 +17,7 @@ package inflectra.idea.ui.panels;
 
 import inflectra.idea.core.SpiraTeamCredentials;
 import inflectra.idea.core.SpiraTeamUtil;
+import inflectra.idea.core.cache.ProjectMetadata;
 import inflectra.idea.core.model.SpiraTeamArtifactType;
 import inflectra.idea.core.model.SpiraTeamPriority;
 import inflectra.idea.core.model.SpiraTeamProject;
@@ -35,16 +36,16 @@ import java.awt.*;
 public class NewRequirementPanel extends NewArtifactPanel {
   SpiraTeamCredentials credentials;
 
-  public NewRequirementPanel(SpiraTeamCredentials credentials, SpiraTeamProject project, String name, String description, SpiraTeamUser[] user) {
+  public NewRequirementPanel(SpiraTeamCredentials credentials, SpiraTeamProject project, String name, String description,
+                             ProjectMetadata metadata) {
     super(credentials, project.getProjectId(), name, description);
     this.credentials = credentials;
-    this.users = user;
 
     //get the active users in the current project
-    if (projectId != -1 && users == null) {
-      users = SpiraTeamUtil.getProjectUsers(credentials, projectId);
+    if (metadata != null) {
+      users = metadata.getUsers();
     }
-    else if (users == null){
+    else {
       users = new SpiraTeamUser[1];
       users[0] = new SpiraTeamUser("Please select a project", -1, "", -1);
     }
@@ -58,8 +59,8 @@ public class NewRequirementPanel extends NewArtifactPanel {
 
     //only add stuff if the projectId is valid
     SpiraTeamArtifactType[] requirementTypesArr;
-    if(projectId != -1) {
-      requirementTypesArr = SpiraTeamUtil.getRequirementTypes(credentials, projectId);
+    if(metadata != null) {
+      requirementTypesArr = metadata.getRequirementTypes();
     }
     else {
       requirementTypesArr = new SpiraTeamArtifactType[1];
@@ -119,8 +120,4 @@ public class NewRequirementPanel extends NewArtifactPanel {
     }
   }
 
-  public NewRequirementPanel(SpiraTeamCredentials credentials, SpiraTeamProject project) {
-    this(credentials, project, "", "", null);
-  }
-
 }
@@ -17,6 +17,7 @@ package inflectra.idea.ui.panels;
 
 import inflectra.idea.core.SpiraTeamCredentials;
 import inflectra.idea.core.SpiraTeamUtil;
+import inflectra.idea.core.cache.ProjectMetadata;
 import inflectra.idea.core.model.SpiraTeamArtifactType;
 import inflectra.idea.core.model.SpiraTeamPriority;
 import inflectra.idea.core.model.SpiraTeamProject;
@@ -34,16 +35,16 @@ import java.awt.*;
  */
 public class NewTaskPanel extends NewArtifactPanel {
   SpiraTeamCredentials credentials;
-  public NewTaskPanel(SpiraTeamCredentials credentials, SpiraTeamProject project, String name, String description, SpiraTeamUser[] user) {
+  public NewTaskPanel(SpiraTeamCredentials credentials, SpiraTeamProject project, String name, String description,
+                      ProjectMetadata metadata) {
     super(credentials, project.getProjectId(), name, description);
     this.credentials = credentials;
-    this.users = user;
 
     //get the active users in the current project
-    if (projectId != -1 && users == null) {
-      users = SpiraTeamUtil.getProjectUsers(credentials, projectId);
+    if (metadata != null) {
+      users = metadata.getUsers();
     }
-    else if (users == null){
+    else {
       users = new SpiraTeamUser[1];
       users[0] = new SpiraTeamUser("Please select a project", -1, "", -1);
     }
@@ -58,8 +59,8 @@ public class NewTaskPanel extends NewArtifactPanel {
     //only add stuff if the projectId is valid and the user can create tasks
     //the types of tasks in the given project
     SpiraTeamArtifactType[] taskTypesArr;
-    if(projectId != -1) {
-      taskTypesArr = SpiraTeamUtil.getTaskTypes(credentials, projectId);
+    if(metadata != null) {
+      taskTypesArr = metadata.getTaskTypes();
     }
     else {
       taskTypesArr = new SpiraTeamArtifactType[1];
@@ -119,8 +120,4 @@ public class NewTaskPanel extends NewArtifactPanel {
     }
   }
 
-  public NewTaskPanel(SpiraTeamCredentials credentials, SpiraTeamProject project) {
-    this(credentials, project, "", "", null);
-  }
-
 }
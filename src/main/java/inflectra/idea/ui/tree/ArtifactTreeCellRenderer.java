@@ -0,0 +1,48 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inflectra.idea.ui.tree;
+
+import com.intellij.ui.ColoredTreeCellRenderer;
+import com.intellij.ui.SimpleTextAttributes;
+import inflectra.idea.core.model.artifacts.Artifact;
+
+import javax.swing.*;
+import javax.swing.tree.DefaultMutableTreeNode;
+
+/**
+ * Draws every row of the artifact tree, so no component has to be created for each artifact
+ * @author Peter Geertsema
+ */
+public class ArtifactTreeCellRenderer extends ColoredTreeCellRenderer {
+
+  @Override
+  public void customizeCellRenderer(JTree tree, Object value, boolean selected, boolean expanded, boolean leaf,
+                                    int row, boolean hasFocus) {
+    DefaultMutableTreeNode node = (DefaultMutableTreeNode)value;
+    Object userObject = node.getUserObject();
+    if(userObject instanceof Artifact) {
+      Artifact artifact = (Artifact)userObject;
+      append(artifact.getName() == null ? "" : artifact.getName());
+      //show the ID in the same form as SpiraTeam, ex RQ:12
+      append("  " + artifact.getPrefix() + ":" + artifact.getArtifactId(), SimpleTextAttributes.GRAYED_ATTRIBUTES);
+    }
+    else if(userObject != null) {
+      //the category, ex Requirements, along with how many there are
+      append(userObject.toString(), SimpleTextAttributes.REGULAR_BOLD_ATTRIBUTES);
+      append(" (" + node.getChildCount() + ")", SimpleTextAttributes.GRAYED_ATTRIBUTES);
+    }
+  }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2000-2017 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package inflectra.idea.ui.tree;
+
+import inflectra.idea.core.model.artifacts.Artifact;
+import inflectra.idea.core.model.artifacts.ArtifactType;
+import inflectra.idea.core.model.artifacts.AssignedArtifacts;
+
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeModel;
+import javax.swing.tree.TreePath;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The model behind the tree of assigned artifacts
+ * <p>The root is hidden and has one child for each kind of artifact assigned to the user. Each of those has a
+ * leaf for every artifact of that kind, whose user object is the {@link Artifact} itself.</p>
+ * <p>{@link #update(AssignedArtifacts)} only touches the rows which were inserted, removed or changed, so the
+ * selection, expanded categories and scroll position of the tree are left alone</p>
+ * @author Peter Geertsema
+ */
+public class ArtifactTreeModel extends DefaultTreeModel {
+  //one node for each kind of artifact, only added to the root if there is something assigned
+  private final DefaultMutableTreeNode requirements = new DefaultMutableTreeNode("Requirements");
+  private final DefaultMutableTreeNode tasks = new DefaultMutableTreeNode("Tasks");
+  private final DefaultMutableTreeNode incidents = new DefaultMutableTreeNode("Incidents");
+
+  public ArtifactTreeModel() {
+    super(new DefaultMutableTreeNode());
+  }
+
+  /**
+   * Replaces every artifact in the tree with the given ones
+   * @param artifacts Every artifact assigned to the user
+   */
+  public void setArtifacts(AssignedArtifacts artifacts) {
+    DefaultMutableTreeNode root = (DefaultMutableTreeNode)getRoot();
+    root.removeAllChildren();
+    addCategory(root, requirements, artifacts.getRequirements());
+    addCategory(root, tasks, artifacts.getTasks());
+    addCategory(root, incidents, artifacts.getIncidents());
+    //a single event for the whole tree instead of one for each artifact
+    reload();
+  }
+
+  /**
+   * Brings the tree up to date with the given artifacts, firing events only for the rows which changed.
+   * Artifacts are matched by type, project and ID, and a changed content hash marks the row as changed
+   * @param artifacts Every artifact assigned to the user
+   */
+  public void update(AssignedArtifacts artifacts) {
+    updateCategory(requirements, artifacts.getRequirements(), 0);
+    updateCategory(tasks, artifacts.getTasks(), 1);
+    updateCategory(incidents, artifacts.getIncidents(), 2);
+  }
+
+  /**
+   * Reconciles a single category with the artifacts now assigned
+   * @param order Where the category goes relative to the other categories
+   */
+  private void updateCategory(DefaultMutableTreeNode category, List<Artifact> list, int order) {
+    DefaultMutableTreeNode root = (DefaultMutableTreeNode)getRoot();
+    boolean shown = category.getParent() != null;
+    //nothing is assigned, so take the whole category out of the tree
+    if(list.isEmpty()) {
+      if(shown)
+        removeNodeFromParent(category);
+      category.removeAllChildren();
+      return;
+    }
+    //the category is new, so it can be filled before it is added to the tree
+    if(!shown) {
+      addCategory(new DefaultMutableTreeNode(), category, list);
+      insertNodeInto(category, root, getCategoryIndex(root, order));
+      return;
+    }
+
+    //the keys of everything now assigned
+    Set<String> keys = new HashSet<>();
+    for(Artifact artifact: list) {
+      keys.add(getKey(artifact));
+    }
+    //remove everything which is no longer assigned, from the bottom up so the indices stay valid
+    for(int i=category.getChildCount() - 1; i>=0; i--) {
+      DefaultMutableTreeNode node = (DefaultMutableTreeNode)category.getChildAt(i);
+      //the index is already known, so there is no need to look it up the way removeNodeFromParent does
+      if(!keys.contains(getKey((Artifact)node.getUserObject()))) {
+        category.remove(i);
+        nodesWereRemoved(category, new int[]{i}, new Object[]{node});
+      }
+    }
+    //the rows which are left, keyed the same way
+    Map<String, DefaultMutableTreeNode> existing = new HashMap<>();
+    for(int i=0; i<category.getChildCount(); i++) {
+      DefaultMutableTreeNode node = (DefaultMutableTreeNode)category.getChildAt(i);
+      existing.put(getKey((Artifact)node.getUserObject()), node);
+    }
+    //walk the new list, inserting, moving or changing rows only where they differ
+    for(int i=0; i<list.size(); i++) {
+      Artifact artifact = list.get(i);
+      DefaultMutableTreeNode node = existing.get(getKey(artifact));
+      if(node == null) {
+        insertNodeInto(new DefaultMutableTreeNode(artifact, false), category, i);
+        continue;
+      }
+      //the server sent it in a different position. The rows above are already in place, so it is enough to
+      //check the row at this position rather than looking the node up
+      if(category.getChildAt(i) != node) {
+        removeNodeFromParent(node);
+        insertNodeInto(node, category, i);
+      }
+      Artifact old = (Artifact)node.getUserObject();
+      if(old != artifact) {
+        node.setUserObject(artifact);
+        //only repaint the row if something shown in it has changed
+        if(old.getContentHash() != artifact.getContentHash())
+          nodeChanged(node);
+      }
+    }
+    //the count next to the name of the category may have changed
+    nodeChanged(category);
+  }
+
+  /**
+   * @return Where a category of the given order goes among the categories currently in the root
+   */
+  private int getCategoryIndex(DefaultMutableTreeNode root, int order) {
+    DefaultMutableTreeNode[] categories = {requirements, tasks, incidents};
+    int index = 0;
+    for(int i=0; i<order; i++) {
+      if(categories[i].getParent() == root)
+        index++;
+    }
+    return index;
+  }
+
+  /**
+   * @return What identifies the artifact across refreshes
+   */
+  private static String getKey(Artifact artifact) {
+    return artifact.getArtifactType() + ":" + artifact.getProjectId() + ":" + artifact.getArtifactId();
+  }
+
+  /**
+   * Fills the category with the artifacts, adding it to the root only if there are any
+   */
+  private static void addCategory(DefaultMutableTreeNode root, DefaultMutableTreeNode category, List<Artifact> list) {
+    category.removeAllChildren();
+    if(list.isEmpty())
+      return;
+    for(Artifact artifact: list) {
+      //artifacts never have children
+      category.add(new DefaultMutableTreeNode(artifact, false));
+    }
+    root.add(category);
+  }
+
+  /**
+   * @param type The type of the artifact
+   * @param artifactId The ID of the artifact
+   * @return The path to the artifact, null if it is not in the tree
+   */
+  public TreePath findArtifact(ArtifactType type, int artifactId) {
+    DefaultMutableTreeNode category = getCategory(type);
+    if(category == null || category.getParent() == null)
+      return null;
+    for(int i=0; i<category.getChildCount(); i++) {
+      DefaultMutableTreeNode node = (DefaultMutableTreeNode)category.getChildAt(i);
+      Artifact artifact = (Artifact)node.getUserObject();
+      if(artifact.getArtifactId() == artifactId)
+        return new TreePath(node.getPath());
+    }
+    return null;
+  }
+
+  /**
+   * @return The node holding every artifact of the given type, null if the type is not shown in the tree
+   */
+  public DefaultMutableTreeNode getCategory(ArtifactType type) {
+    if(type == ArtifactType.REQUIREMENT)
+      return requirements;
+    if(type == ArtifactType.TASK)
+      return tasks;
+    if(type == ArtifactType.INCIDENT)
+      return incidents;
+    return null;
+  }
+
+  /**
+   * @param path A path in the tree
+   * @return The artifact at the end of the path, null if the path does not end at an artifact
+   */
+  public static Artifact getArtifact(TreePath path) {
+    if(path == null)
+      return null;
+    Object userObject = ((DefaultMutableTreeNode)path.getLastPathComponent()).getUserObject();
+    if(userObject instanceof Artifact)
+      return (Artifact)userObject;
+    return null;
+  }
+}